@@ -0,0 +1,75 @@
+package benchmarks;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import perft.Perft;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the calls the server makes on every move. Each benchmark runs against both board
+ * representations so alternatives can be compared with numbers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessGameBenchmark {
+
+    @Param({"ChessBoardImpl", "BitboardChessBoard"})
+    public String boardType;
+
+    @Param({Perft.START_POSITION, Perft.KIWIPETE})
+    public String fen;
+
+    private ChessGameImpl game;
+    private ChessPosition[] occupiedPositions;
+
+    @Setup
+    public void setUp() {
+        ChessBoard board = boardType.equals("BitboardChessBoard") ? new BitboardChessBoard() : new ChessBoardImpl();
+        game = FenCodec.decode(fen, board);
+        var positionCount = 0;
+        var positions = new ChessPosition[64];
+        for (int square = 0; square < 64; square++) {
+            if (board.getPiece(square) != null && board.getPiece(square).getTeamColor() == game.getTeamTurn())
+                positions[positionCount++] = ChessPositionImpl.fromSquare(square);
+        }
+        occupiedPositions = Arrays.copyOf(positions, positionCount);
+    }
+
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (var position : occupiedPositions)
+            blackhole.consume(game.validMoves(position));
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        return game.isInStalemate(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public ChessPosition findKing() {
+        return game.getBoard().findKing(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public long perft3() {
+        return new Perft(game, 3).count(3);
+    }
+}
@@ -0,0 +1,95 @@
+package benchmarks;
+
+import chess.*;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.typeadapters.RuntimeTypeAdapterFactory;
+import org.openjdk.jmh.annotations.*;
+import perft.Perft;
+import webSocketMessages.serverMessages.ServerMessage;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hand-written streaming adapters against the reflective setup they replaced
+ * (runtime type factories plus a piece adapter that built a new Gson for every piece) on the
+ * LOAD_GAME message sent after every move and the game JSON read back from the database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GsonAdapterBenchmark {
+
+    @Param({"reflective", "streaming"})
+    public String adapter;
+
+    private Gson gson;
+    private ServerMessage loadMessage;
+    private String loadMessageJson;
+
+    @Setup
+    public void setUp() {
+        gson = adapter.equals("reflective") ? reflectiveGson() : ChessGameImpl.getGsonAdapter();
+        var game = FenCodec.decode(Perft.KIWIPETE);
+        loadMessage = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME);
+        loadMessage.setGame(game);
+        loadMessageJson = gson.toJson(loadMessage);
+    }
+
+    @Benchmark
+    public String serializeLoadGame() {
+        return gson.toJson(loadMessage);
+    }
+
+    @Benchmark
+    public ServerMessage deserializeLoadGame() {
+        return gson.fromJson(loadMessageJson, ServerMessage.class);
+    }
+
+    private static Gson reflectiveGson() {
+        GsonBuilder builder = new GsonBuilder();
+        builder.registerTypeAdapterFactory(RuntimeTypeAdapterFactory.of(ChessGame.class, "type")
+                .registerSubtype(ChessGameImpl.class));
+        builder.registerTypeAdapterFactory(RuntimeTypeAdapterFactory.of(ChessPosition.class, "type")
+                .registerSubtype(ChessPositionImpl.class));
+        builder.registerTypeAdapterFactory(RuntimeTypeAdapterFactory.of(ChessMove.class, "type")
+                .registerSubtype(ChessMoveImpl.class));
+        builder.registerTypeAdapterFactory(RuntimeTypeAdapterFactory.of(ChessBoard.class, "type")
+                .registerSubtype(ChessBoardImpl.class)
+                .registerSubtype(BitboardChessBoard.class));
+        builder.registerTypeAdapter(ChessPiece.class, new ReflectivePieceAdapter());
+        return builder.create();
+    }
+
+    // The piece adapter as it was before the streaming adapters
+    private static class ReflectivePieceAdapter extends TypeAdapter<ChessPiece> {
+        @Override
+        public void write(JsonWriter jsonWriter, ChessPiece chessPiece) throws IOException {
+            Gson gson = new Gson();
+            if (chessPiece == null) {
+                jsonWriter.nullValue();
+                return;
+            }
+            switch (chessPiece.getPieceType()) {
+                case ROOK -> gson.getAdapter(Rook.class).write(jsonWriter, (Rook) chessPiece);
+                case BISHOP -> gson.getAdapter(Bishop.class).write(jsonWriter, (Bishop) chessPiece);
+                case KING -> gson.getAdapter(King.class).write(jsonWriter, (King) chessPiece);
+                case KNIGHT -> gson.getAdapter(Knight.class).write(jsonWriter, (Knight) chessPiece);
+                case PAWN -> gson.getAdapter(Pawn.class).write(jsonWriter, (Pawn) chessPiece);
+                case QUEEN -> gson.getAdapter(Queen.class).write(jsonWriter, (Queen) chessPiece);
+            }
+        }
+
+        @Override
+        public ChessPiece read(JsonReader jsonReader) throws IOException {
+            return new ChessPieceAdapter().read(jsonReader);
+        }
+    }
+}
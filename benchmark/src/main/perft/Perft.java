@@ -0,0 +1,67 @@
+package perft;
+
+import chess.*;
+
+import java.util.function.Supplier;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth. The counts for standard positions are
+ * published, so any difference means move generation is wrong, and the time taken measures its speed.
+ */
+public class Perft {
+    public static final String START_POSITION = FenCodec.START_POSITION;
+    public static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    public static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    public static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    public static final String POSITION_5 = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+
+    private final ChessGameImpl game;
+    // One move buffer per ply so that recursion doesn't allocate
+    private final int[][] moveBuffers;
+
+    public Perft(ChessGameImpl game, int maxDepth) {
+        this.game = game;
+        moveBuffers = new int[maxDepth + 1][ChessGameImpl.MAX_POSITION_MOVES];
+    }
+
+    /**
+     * @return the number of positions reachable in exactly depth moves
+     */
+    public long count(int depth) {
+        if (depth == 0)
+            return 1;
+        var moves = moveBuffers[depth];
+        var moveCount = game.legalMoves(moves);
+        if (depth == 1)
+            return moveCount;
+        long nodes = 0;
+        for (int i = 0; i < moveCount; i++) {
+            game.makeMove(moves[i]);
+            nodes += count(depth - 1);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Runs perft on the standard positions and prints nodes per second for each board representation
+     * @param args optionally the depth to search the start position to (default 5)
+     */
+    public static void main(String[] args) {
+        var depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        run("ChessBoardImpl", ChessBoardImpl::new, depth);
+        run("BitboardChessBoard", BitboardChessBoard::new, depth);
+    }
+
+    private static void run(String name, Supplier<ChessBoard> boardFactory, int depth) {
+        System.out.println(name);
+        for (var fen : new String[]{START_POSITION, KIWIPETE, POSITION_3, POSITION_4, POSITION_5}) {
+            var perft = new Perft(FenCodec.decode(fen, boardFactory.get()), depth);
+            var startTime = System.nanoTime();
+            var nodes = perft.count(depth);
+            var seconds = (System.nanoTime() - startTime) / 1e9;
+            System.out.printf("  depth %d: %,12d nodes  %8.3fs  %,12.0f nodes/s  %s%n",
+                    depth, nodes, seconds, nodes / seconds, fen);
+        }
+    }
+}
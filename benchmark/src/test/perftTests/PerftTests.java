@@ -0,0 +1,56 @@
+package perftTests;
+
+import chess.BitboardChessBoard;
+import chess.ChessBoard;
+import chess.ChessBoardImpl;
+import chess.FenCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import perft.Perft;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Node counts from https://www.chessprogramming.org/Perft_Results
+ */
+public class PerftTests {
+
+    private static final List<Supplier<ChessBoard>> boardFactories =
+            List.of(ChessBoardImpl::new, BitboardChessBoard::new);
+
+    private static void assertCounts(String fen, long... expectedCounts) {
+        for (var boardFactory : boardFactories) {
+            var perft = new Perft(FenCodec.decode(fen, boardFactory.get()), expectedCounts.length);
+            for (int depth = 1; depth <= expectedCounts.length; depth++) {
+                Assertions.assertEquals(expectedCounts[depth - 1], perft.count(depth),
+                        "Wrong node count at depth " + depth + " for " + fen);
+            }
+        }
+    }
+
+    @Test
+    public void startPosition() {
+        assertCounts(Perft.START_POSITION, 20, 400, 8902, 197281);
+    }
+
+    @Test
+    public void kiwipete() {
+        assertCounts(Perft.KIWIPETE, 48, 2039, 97862);
+    }
+
+    @Test
+    public void position3() {
+        assertCounts(Perft.POSITION_3, 14, 191, 2812, 43238);
+    }
+
+    @Test
+    public void position4() {
+        assertCounts(Perft.POSITION_4, 6, 264, 9467);
+    }
+
+    @Test
+    public void position5() {
+        assertCounts(Perft.POSITION_5, 44, 1486, 62379);
+    }
+}
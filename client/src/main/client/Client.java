@@ -29,7 +29,8 @@ public class Client {
     public static void main(String[] args) { new Client(); }
 
     public Client() {
-        ServerFacade serverFacade = new ServerFacade("localhost", "8080", serverMessageObserver);
+        ServerFacade serverFacade = new ServerFacade("localhost", "8080", serverMessageObserver,
+                Boolean.getBoolean("chess.binaryWebSocket"));
         repl = new Repl(serverFacade);
         repl.run();
     }
@@ -1,7 +1,7 @@
 package client;
 
 import chess.*;
-import model.Game;
+import model.GameSummary;
 import serverFacade.ServerFacade;
 import serverFacade.ServerMessageObserver;
 import webRequest.*;
@@ -29,7 +29,11 @@ public class Repl {
     private boolean clientQuit = false;
     private String authToken;
     private ChessGame.TeamColor playerColor;
-    private Map<Integer, Game> gameList;
+    private Map<Integer, GameSummary> gameList;
+    private static final int GAME_LIST_PAGE_SIZE = 20;
+    private ListGamesRequest lastListRequest;
+    private Integer nextListCursor;
+    private String username;
     private ClientContext clientContext = ClientContext.PRELOGIN;
     private ChessGame currentGame;
     private Integer currentGameID;
@@ -73,6 +77,7 @@ public class Repl {
                 var registerResult = serverFacade.register(registerRequest);
                 if (serverFacade.getStatusCode() == 200) {
                     authToken = registerResult.authToken();
+                    username = registerResult.username();
                     clientContext = ClientContext.POSTLOGIN;
                     System.out.println("Logged in as " + registerResult.username());
                 } else
@@ -88,6 +93,7 @@ public class Repl {
                 var loginResult = serverFacade.login(loginRequest);
                 if (serverFacade.getStatusCode() == 200) {
                     authToken = loginResult.authToken();
+                    username = loginRequest.username();
                     clientContext = ClientContext.POSTLOGIN;
                     System.out.println("Logged in as " + loginRequest.username());
                 } else
@@ -124,19 +130,53 @@ public class Repl {
         createGameCommand.addValidStatus(ClientContext.POSTLOGIN);
         commands.put("create", createGameCommand);
 
-        var listGamesCommand = new Command("list - games") {
+        var listGamesCommand = new Command("list [open] [mine] [over] [<NAME PREFIX>] | list more - games") {
             public void run(String[] args) throws Exception {
-                var listGamesResult = serverFacade.listGames(authToken);
+                ListGamesRequest listRequest;
+                var continuing = args.length > 0 && args[0].equalsIgnoreCase("more");
+                if (continuing) {
+                    if (lastListRequest == null || nextListCursor == null) {
+                        System.out.println("No more games to list");
+                        return;
+                    }
+                    listRequest = new ListGamesRequest(nextListCursor, lastListRequest.limit(),
+                            lastListRequest.openSeat(), lastListRequest.player(), lastListRequest.gameOver(),
+                            lastListRequest.namePrefix());
+                } else {
+                    Boolean openSeat = null;
+                    String player = null;
+                    Boolean gameOver = null;
+                    String namePrefix = null;
+                    for (var arg : args) {
+                        switch (arg.toLowerCase()) {
+                            case "open" -> openSeat = true;
+                            case "mine" -> player = username;
+                            case "over" -> gameOver = true;
+                            default -> namePrefix = arg;
+                        }
+                    }
+                    listRequest = new ListGamesRequest(null, GAME_LIST_PAGE_SIZE, openSeat, player, gameOver,
+                            namePrefix);
+                }
+
+                var listGamesResult = serverFacade.listGames(listRequest, authToken);
                 if (serverFacade.getStatusCode() == 200) {
-                    var count = 0;
-                    System.out.println("Number: Name, White Player, Black Player");
-                    gameList = new HashMap<>();
-                    for (Game game : listGamesResult.games()) {
+                    // Numbers keep counting up across pages so every listed game can still be joined
+                    if (!continuing) {
+                        System.out.println("Number: Name, White Player, Black Player");
+                        gameList = new HashMap<>();
+                    }
+                    var count = gameList.size();
+                    for (GameSummary game : listGamesResult.games()) {
                         var number = ++count;
                         gameList.put(number, game);
                         System.out.print(number + ": " + game.gameName() + ", ");
                         System.out.println(game.whiteUsername() + ", " + game.blackUsername());
                     }
+                    lastListRequest = listRequest;
+                    nextListCursor = listGamesResult.nextCursor();
+                    if (nextListCursor != null)
+                        System.out.println("Use 'list more' to see more games");
                 }
                 else
                     System.out.println(listGamesResult.message());
@@ -347,7 +387,7 @@ public class Repl {
                 else
                     stringBuilder.append("\033[").append(highlightSquare ? "102m" : "107m");
 
-                var piece = board.getPiece(new ChessPositionImpl(row, col));
+                var piece = board.getPiece(ChessPositionImpl.of(row, col));
                 if (piece != null) {
                     var pieceCharacter = pieceCharacters.get(piece.getPieceType());
                     if (piece.getTeamColor() == ChessGame.TeamColor.WHITE)
@@ -395,7 +435,7 @@ public class Repl {
                 else
                     stringBuilder.append("\033[").append(highlightSquare ? "102m" : "107m");
 
-                var piece = board.getPiece(new ChessPositionImpl(row, col));
+                var piece = board.getPiece(ChessPositionImpl.of(row, col));
                 if (piece != null) {
                     var pieceCharacter = pieceCharacters.get(piece.getPieceType());
                     if (piece.getTeamColor() == ChessGame.TeamColor.WHITE)
@@ -422,7 +462,7 @@ public class Repl {
             int col = positionString.charAt(0) - 96;
             int row = positionString.charAt(1) - 48;
             if (col > 0 && col < 9 && row > 0 && row < 9)
-                return new ChessPositionImpl(row, col);
+                return ChessPositionImpl.of(row, col);
         }
         return null;
     }
@@ -67,9 +67,9 @@ public class HttpCommunicator {
         return null;
     }
 
-    public ListGamesResult listGames(String authToken) {
+    public ListGamesResult listGames(ListGamesRequest request, String authToken) {
         try {
-            var http = createURLConnection("/game", "GET", null, authToken);
+            var http = createURLConnection("/game" + request.toQueryString(), "GET", null, authToken);
             http.connect();
             return readResponse(http, ListGamesResult.class);
         } catch (Exception exception) {
@@ -1,12 +1,13 @@
 package serverFacade;
 
 import chess.ChessGame;
-import chess.ChessGameImpl;
 import chess.ChessMove;
-import com.google.gson.Gson;
+import chess.ChessMoveImpl;
+import chess.InvalidMoveException;
 import model.User;
 import webRequest.*;
 import webResult.*;
+import webSocketMessages.serverMessages.ServerMessage;
 import webSocketMessages.userCommands.UserGameCommand;
 
 import java.io.InputStream;
@@ -17,15 +18,27 @@ import java.net.URI;
 public class ServerFacade {
     private final String address;
     private final String port;
-    private static final Gson gameAdapter = ChessGameImpl.getGsonAdapter();
     private final HttpCommunicator httpCommunicator;
     private WebsocketCommunicator websocketCommunicator;
     private final ServerMessageObserver serverMessageObserver;
+    private final boolean binaryWebSocket;
+    // The last game state received, so rejoining the same game doesn't download it again
+    private Integer loadedGameID;
+    private ServerMessage loadedGameMessage;
 
     public ServerFacade(String address, String port, ServerMessageObserver serverMessageObserver) {
+        this(address, port, serverMessageObserver, false);
+    }
+
+    /**
+     * @param binaryWebSocket whether game connections use the compact binary format instead of JSON
+     */
+    public ServerFacade(String address, String port, ServerMessageObserver serverMessageObserver,
+                        boolean binaryWebSocket) {
         this.address = address;
         this.port = port;
         this.serverMessageObserver = serverMessageObserver;
+        this.binaryWebSocket = binaryWebSocket;
         httpCommunicator = new HttpCommunicator(address, port);
     }
 
@@ -39,7 +52,13 @@ public class ServerFacade {
 
     public LogoutResult logout(LogoutRequest request) throws Exception { return httpCommunicator.logout(request); }
 
-    public ListGamesResult listGames(String authToken) throws Exception { return httpCommunicator.listGames(authToken); }
+    public ListGamesResult listGames(String authToken) throws Exception {
+        return listGames(new ListGamesRequest(null, null, null, null, null, null), authToken);
+    }
+
+    public ListGamesResult listGames(ListGamesRequest request, String authToken) throws Exception {
+        return httpCommunicator.listGames(request, authToken);
+    }
 
     public CreateGameResult createGame(CreateGameRequest request, String authToken) throws Exception {
         return httpCommunicator.createGame(request, authToken);
@@ -47,14 +66,20 @@ public class ServerFacade {
     public JoinGameResult joinGame(JoinGameRequest request, String authToken) throws Exception {
         JoinGameResult joinResult = httpCommunicator.joinGame(request, authToken);
         if (getStatusCode() == 200) {
-            websocketCommunicator = new WebsocketCommunicator(address, port, serverMessageObserver);
+            var gameID = request.gameID();
+            websocketCommunicator = new WebsocketCommunicator(address, port, message -> receive(gameID, authToken, message),
+                    binaryWebSocket);
             UserGameCommand.CommandType joinType = request.playerColor() == null ? UserGameCommand.CommandType.JOIN_OBSERVER
                     : UserGameCommand.CommandType.JOIN_PLAYER;
             var command = new UserGameCommand(authToken);
             command.setCommandType(joinType);
             command.setGameID(request.gameID());
             command.setPlayerColor(request.playerColor());
-            websocketCommunicator.send(new Gson().toJson(command, UserGameCommand.class));
+            command.setBatchMessages(true);
+            command.setMoveDeltas(true);
+            if (loadedGameMessage != null && gameID.equals(loadedGameID))
+                command.setGameVersion(loadedGameMessage.getGameVersion());
+            websocketCommunicator.send(command);
         }
         return joinResult;
     }
@@ -65,7 +90,7 @@ public class ServerFacade {
         command.setCommandType(UserGameCommand.CommandType.MAKE_MOVE);
         command.setChessMove(move);
         command.setGameID(gameID);
-        websocketCommunicator.send(gameAdapter.toJson(command, UserGameCommand.class));
+        websocketCommunicator.send(command);
     }
 
     public void leave(String authToken, Integer gameID) throws Exception {
@@ -73,7 +98,7 @@ public class ServerFacade {
         var command = new UserGameCommand(authToken);
         command.setCommandType(UserGameCommand.CommandType.LEAVE);
         command.setGameID(gameID);
-        websocketCommunicator.send(new Gson().toJson(command, UserGameCommand.class));
+        websocketCommunicator.send(command);
         websocketCommunicator.close();
     }
 
@@ -82,10 +107,68 @@ public class ServerFacade {
         var command = new UserGameCommand(authToken);
         command.setCommandType(UserGameCommand.CommandType.RESIGN);
         command.setGameID(gameID);
-        websocketCommunicator.send(new Gson().toJson(command, UserGameCommand.class));
+        websocketCommunicator.send(command);
         websocketCommunicator.close();
     }
 
+    private void receive(Integer gameID, String authToken, ServerMessage message) {
+        if (message.getServerMessageType() == ServerMessage.ServerMessageType.MOVE_APPLIED) {
+            if (!applyMove(gameID, message)) {
+                // Our copy is out of step, so ask for the whole game and wait for it
+                loadedGameMessage = null;
+                requestGame(gameID, authToken);
+                return;
+            }
+            // Observers see the updated game the same way they would a LOAD_GAME from the server
+            message = loadedGameMessage;
+        } else if (message.getServerMessageType() == ServerMessage.ServerMessageType.LOAD_GAME) {
+            if (message.getGame() == null) {
+                // The server says the copy we already have is current
+                if (loadedGameMessage == null || !gameID.equals(loadedGameID)
+                        || !loadedGameMessage.getGameVersion().equals(message.getGameVersion()))
+                    return;
+                message = loadedGameMessage;
+            } else {
+                loadedGameID = gameID;
+                loadedGameMessage = message;
+            }
+        }
+        serverMessageObserver.notify(message);
+    }
+
+    /**
+     * Makes the move in a MOVE_APPLIED on the cached game
+     * @return true if the cached game now has the version the server says it should
+     */
+    private boolean applyMove(Integer gameID, ServerMessage message) {
+        if (loadedGameMessage == null || !gameID.equals(loadedGameID) || message.getMove() == null)
+            return false;
+        var game = loadedGameMessage.getGame();
+        try {
+            game.makeMove(ChessMoveImpl.decode(message.getMove()));
+        } catch (InvalidMoveException exception) {
+            return false;
+        }
+        var gameVersion = Long.toHexString(game.getPositionHash());
+        if (!gameVersion.equals(message.getGameVersion()))
+            return false;
+        loadedGameMessage.setGameVersion(gameVersion);
+        return true;
+    }
+
+    private void requestGame(Integer gameID, String authToken) {
+        var command = new UserGameCommand(authToken);
+        command.setCommandType(UserGameCommand.CommandType.REQUEST_GAME);
+        command.setGameID(gameID);
+        try {
+            websocketCommunicator.send(command);
+        } catch (Exception exception) {
+            ServerMessage errorMessage = new ServerMessage(ServerMessage.ServerMessageType.ERROR);
+            errorMessage.setErrorMessage("Lost track of the game: " + exception.getMessage());
+            serverMessageObserver.notify(errorMessage);
+        }
+    }
+
     private void verifyWebsocketExists() throws Exception {
         if (websocketCommunicator == null) {
             throw new Exception("Error: No websocket session");
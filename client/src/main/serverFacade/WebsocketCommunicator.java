@@ -3,31 +3,74 @@ package serverFacade;
 import chess.ChessGameImpl;
 import com.google.gson.Gson;
 import serverFacade.ServerMessageObserver;
+import webSocketMessages.BinaryMessageCodec;
 import webSocketMessages.serverMessages.ServerMessage;
+import webSocketMessages.userCommands.UserGameCommand;
 
 import javax.websocket.*;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 
 public class WebsocketCommunicator extends Endpoint {
     private static final Gson gameAdapter = ChessGameImpl.getGsonAdapter();
     public Session session;
+    // Set when commands are sent in the binary format; the server then answers in it too
+    private final BinaryMessageCodec binaryCodec;
+
     public WebsocketCommunicator(String address, String port, ServerMessageObserver messageObserver) throws Exception {
+        this(address, port, messageObserver, false);
+    }
+
+    /**
+     * @param binary whether to talk to the server with {@link BinaryMessageCodec} frames instead of JSON text
+     */
+    public WebsocketCommunicator(String address, String port, ServerMessageObserver messageObserver, boolean binary)
+            throws Exception {
+        binaryCodec = binary ? new BinaryMessageCodec() : null;
         URI uri = new URI(String.format("ws://%s:%s/connect", address, port));
         WebSocketContainer container = ContainerProvider.getWebSocketContainer();
         this.session = container.connectToServer(this, uri);
         this.session.addMessageHandler(new MessageHandler.Whole<String>() {
             public void onMessage(String message) {
-                ServerMessage serverMessage = gameAdapter.fromJson(message, ServerMessage.class);
-                messageObserver.notify(serverMessage);
+                deliver(messageObserver, gameAdapter.fromJson(message, ServerMessage.class));
+            }
+        });
+        // Errors from before the server has seen a binary command still come as text, so both are handled
+        this.session.addMessageHandler(new MessageHandler.Whole<ByteBuffer>() {
+            public void onMessage(ByteBuffer message) {
+                deliver(messageObserver, BinaryMessageCodec.decodeMessage(message));
             }
         });
     }
 
+    private static void deliver(ServerMessageObserver messageObserver, ServerMessage serverMessage) {
+        // A batch is just several messages in one frame, so observers see them one at a time
+        if (serverMessage.getServerMessageType() == ServerMessage.ServerMessageType.BATCH) {
+            for (ServerMessage batchedMessage : serverMessage.getMessages())
+                messageObserver.notify(batchedMessage);
+        } else
+            messageObserver.notify(serverMessage);
+    }
+
     public void send(String msg) throws Exception {
         this.session.getBasicRemote().sendText(msg);
     }
 
+    /**
+     * Sends a command in whichever format this connection uses
+     */
+    public void send(UserGameCommand command) throws Exception {
+        if (binaryCodec == null) {
+            send(gameAdapter.toJson(command, UserGameCommand.class));
+            return;
+        }
+        // The codec interns auth tokens in the order they're sent, so encoding and sending can't interleave
+        synchronized (binaryCodec) {
+            this.session.getBasicRemote().sendBinary(ByteBuffer.wrap(binaryCodec.encodeCommand(command)));
+        }
+    }
+
     public void close() throws IOException {
         this.session.close();
     }
@@ -0,0 +1,139 @@
+package chess;
+
+/**
+ * Answers "can a team capture on this square?" by looking outward from the square (sliding rays,
+ * knight jumps, pawn and king patterns) instead of generating every enemy move.
+ */
+public final class Attacks {
+
+    private static final int[][] knightOffsets = {
+            {1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}
+    };
+    private static final int[][] kingOffsets = {
+            {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}
+    };
+    private static final int[][] straightDirections = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] diagonalDirections = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] knightAttacks = new long[64];
+    private static final long[] kingAttacks = new long[64];
+    // indexed by the team color of the pawn doing the attacking
+    private static final long[][] pawnAttacks = new long[2][64];
+    static {
+        for (int square = 0; square < 64; square++) {
+            knightAttacks[square] = offsetMask(square, knightOffsets);
+            kingAttacks[square] = offsetMask(square, kingOffsets);
+            pawnAttacks[ChessGame.TeamColor.WHITE.ordinal()][square] = offsetMask(square, new int[][]{{1, -1}, {1, 1}});
+            pawnAttacks[ChessGame.TeamColor.BLACK.ordinal()][square] = offsetMask(square, new int[][]{{-1, -1}, {-1, 1}});
+        }
+    }
+
+    private Attacks() {}
+
+    private static long offsetMask(int square, int[][] offsets) {
+        long mask = 0L;
+        for (int[] offset : offsets) {
+            var row = square / 8 + offset[0];
+            var col = square % 8 + offset[1];
+            if (row >= 0 && row < 8 && col >= 0 && col < 8)
+                mask |= 1L << (row * 8 + col);
+        }
+        return mask;
+    }
+
+    private static long rayMask(int square, int[][] directions, long occupancy) {
+        long mask = 0L;
+        for (int[] direction : directions) {
+            var row = square / 8 + direction[0];
+            var col = square % 8 + direction[1];
+            while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                long bit = 1L << (row * 8 + col);
+                mask |= bit;
+                if ((occupancy & bit) != 0)
+                    break;
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    public static long knightAttacks(int square) { return knightAttacks[square]; }
+
+    public static long kingAttacks(int square) { return kingAttacks[square]; }
+
+    /**
+     * @param teamColor the color of the attacking pawn
+     * @param square the square the pawn is on
+     * @return the squares the pawn could capture on
+     */
+    public static long pawnAttacks(ChessGame.TeamColor teamColor, int square) {
+        return pawnAttacks[teamColor.ordinal()][square];
+    }
+
+    /**
+     * @return the squares a rook on the square reaches, stopping at (and including) the first occupied square
+     */
+    public static long rookAttacks(int square, long occupancy) {
+        return rayMask(square, straightDirections, occupancy);
+    }
+
+    /**
+     * @return the squares a bishop on the square reaches, stopping at (and including) the first occupied square
+     */
+    public static long bishopAttacks(int square, long occupancy) {
+        return rayMask(square, diagonalDirections, occupancy);
+    }
+
+    public static ChessGame.TeamColor opponent(ChessGame.TeamColor teamColor) {
+        return teamColor == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    /**
+     * Determines if a team attacks a square on any board, using only {@link ChessBoard#getPiece(int)}
+     * @param board the board to look at
+     * @param square the square index to check
+     * @param attackingTeam the team that might be attacking the square
+     * @return true if a piece of the attacking team could capture on the square
+     */
+    public static boolean isSquareAttacked(ChessBoard board, int square, ChessGame.TeamColor attackingTeam) {
+        // A pawn attacks the square if it sits where a defending pawn on the square would capture
+        if (maskHasPiece(board, pawnAttacks(opponent(attackingTeam), square), attackingTeam, ChessPiece.PieceType.PAWN)
+                || maskHasPiece(board, knightAttacks[square], attackingTeam, ChessPiece.PieceType.KNIGHT)
+                || maskHasPiece(board, kingAttacks[square], attackingTeam, ChessPiece.PieceType.KING))
+            return true;
+        return rayHasSlider(board, square, straightDirections, attackingTeam, ChessPiece.PieceType.ROOK)
+                || rayHasSlider(board, square, diagonalDirections, attackingTeam, ChessPiece.PieceType.BISHOP);
+    }
+
+    private static boolean maskHasPiece(ChessBoard board, long mask, ChessGame.TeamColor teamColor,
+                                        ChessPiece.PieceType type) {
+        while (mask != 0) {
+            var piece = board.getPiece(Long.numberOfTrailingZeros(mask));
+            if (piece != null && piece.getTeamColor() == teamColor && piece.getPieceType() == type)
+                return true;
+            mask &= mask - 1;
+        }
+        return false;
+    }
+
+    private static boolean rayHasSlider(ChessBoard board, int square, int[][] directions,
+                                        ChessGame.TeamColor teamColor, ChessPiece.PieceType sliderType) {
+        for (int[] direction : directions) {
+            var row = square / 8 + direction[0];
+            var col = square % 8 + direction[1];
+            while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                var piece = board.getPiece(row * 8 + col);
+                if (piece != null) {
+                    if (piece.getTeamColor() == teamColor && (piece.getPieceType() == sliderType
+                            || piece.getPieceType() == ChessPiece.PieceType.QUEEN))
+                        return true;
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return false;
+    }
+}
@@ -1,8 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.Collection;
-
 public class Bishop extends ChessPieceImpl{
     public Bishop(ChessGame.TeamColor color) {
         super(color);
@@ -14,29 +11,13 @@ public class Bishop extends ChessPieceImpl{
     }
 
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        ArrayList<ChessMove> moves = new ArrayList<>();
-
+    public int pieceMoves(ChessBoard board, int square, int[] moves, int moveCount) {
         // Go through each of the diagonal directions
         for (int rowDirection = -1; rowDirection <= 1; rowDirection += 2) {
-            for (int colDirection = -1; colDirection <= 1; colDirection += 2) {
-                for (int distance = 1; distance <= 7; distance ++) {
-                    var row = myPosition.getRow() + rowDirection * distance;
-                    var col = myPosition.getColumn() + colDirection * distance;
-                    if (row > 0 && row < 9 && col > 0 && col < 9) {
-                        ChessPosition targetPosition = new ChessPositionImpl(row, col);
-                        ChessPiece blockingPiece = board.getPiece(targetPosition);
-                        if (blockingPiece == null) {
-                            moves.add(new ChessMoveImpl(myPosition, targetPosition, null));
-                            continue;
-                        } else if (blockingPiece.getTeamColor() != getTeamColor()) // can capture piece
-                            moves.add(new ChessMoveImpl(myPosition, targetPosition, null));
-                        break;
-                    }
-                }
-            }
+            for (int colDirection = -1; colDirection <= 1; colDirection += 2)
+                moveCount = addSlidingMoves(board, square, rowDirection, colDirection, moves, moveCount);
         }
 
-        return moves;
+        return moveCount;
     }
 }
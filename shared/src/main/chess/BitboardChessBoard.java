@@ -0,0 +1,238 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A chessboard backed by one 64-bit occupancy mask per piece type and team color.
+ * Bit n of a mask is set when the square at row (n / 8) + 1, column (n % 8) + 1 holds that piece.
+ */
+public class BitboardChessBoard implements ChessBoard {
+
+    private static final int PIECE_TYPE_COUNT = ChessPiece.PieceType.values().length;
+
+    private static final ChessPiece[] pieces = new ChessPiece[PIECE_TYPE_COUNT * 2];
+    static {
+        for (ChessGame.TeamColor teamColor : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values())
+                pieces[pieceIndex(teamColor, type)] = ChessPieceImpl.getInstance(teamColor, type);
+        }
+    }
+
+    private final long[] pieceBoards = new long[PIECE_TYPE_COUNT * 2];
+    private final long[] teamBoards = new long[2];
+    private long occupied;
+    // Hash of the pieces, computed on first use (boards from JSON start without one) and then kept up to date
+    private transient long zobristKey;
+    private transient boolean zobristKeyValid = false;
+
+    private static int pieceIndex(ChessGame.TeamColor teamColor, ChessPiece.PieceType type) {
+        return teamColor.ordinal() * PIECE_TYPE_COUNT + type.ordinal();
+    }
+
+    private static int squareIndex(ChessPosition position) {
+        return ChessPositionImpl.toSquare(position);
+    }
+
+    private void placePiece(int square, int pieceIndex) {
+        if (zobristKeyValid)
+            zobristKey ^= Zobrist.pieceKey(pieces[pieceIndex], square);
+        long bit = 1L << square;
+        pieceBoards[pieceIndex] |= bit;
+        teamBoards[pieceIndex / PIECE_TYPE_COUNT] |= bit;
+        occupied |= bit;
+    }
+
+    private void clearSquare(int square) {
+        long bit = 1L << square;
+        if ((occupied & bit) == 0)
+            return;
+        if (zobristKeyValid)
+            zobristKey ^= Zobrist.pieceKey(getPiece(square), square);
+        for (int i = 0; i < pieceBoards.length; i++)
+            pieceBoards[i] &= ~bit;
+        teamBoards[0] &= ~bit;
+        teamBoards[1] &= ~bit;
+        occupied &= ~bit;
+    }
+
+    private int pieceIndexAt(int square) {
+        long bit = 1L << square;
+        if ((occupied & bit) == 0)
+            return -1;
+        int start = (teamBoards[0] & bit) != 0 ? 0 : PIECE_TYPE_COUNT;
+        for (int i = start; i < start + PIECE_TYPE_COUNT; i++) {
+            if ((pieceBoards[i] & bit) != 0)
+                return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public void addPiece(ChessPosition position, ChessPiece piece) {
+        var square = squareIndex(position);
+        if (piece != null && (occupied & (1L << square)) == 0)
+            placePiece(square, pieceIndex(piece.getTeamColor(), piece.getPieceType()));
+    }
+
+    @Override
+    public ChessPiece getPiece(ChessPosition position) {
+        return getPiece(squareIndex(position));
+    }
+
+    @Override
+    public ChessPiece getPiece(int square) {
+        var pieceIndex = pieceIndexAt(square);
+        return pieceIndex < 0 ? null : pieces[pieceIndex];
+    }
+
+    @Override
+    public void setPiece(int square, ChessPiece piece) {
+        clearSquare(square);
+        if (piece != null)
+            placePiece(square, pieceIndex(piece.getTeamColor(), piece.getPieceType()));
+    }
+
+    @Override
+    public ChessPosition findKing(ChessGame.TeamColor teamColor) {
+        var square = findKingSquare(teamColor);
+        return square < 0 ? null : ChessPositionImpl.fromSquare(square);
+    }
+
+    @Override
+    public int findKingSquare(ChessGame.TeamColor teamColor) {
+        var kingBoard = pieceBoards[pieceIndex(teamColor, ChessPiece.PieceType.KING)];
+        return kingBoard == 0 ? -1 : Long.numberOfTrailingZeros(kingBoard);
+    }
+
+    @Override
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor attackingTeam) {
+        var teamOffset = attackingTeam.ordinal() * PIECE_TYPE_COUNT;
+        var queens = pieceBoards[teamOffset + ChessPiece.PieceType.QUEEN.ordinal()];
+        // A pawn attacks the square if it sits where a defending pawn on the square would capture
+        return (Attacks.pawnAttacks(Attacks.opponent(attackingTeam), square)
+                    & pieceBoards[teamOffset + ChessPiece.PieceType.PAWN.ordinal()]) != 0
+                || (Attacks.knightAttacks(square) & pieceBoards[teamOffset + ChessPiece.PieceType.KNIGHT.ordinal()]) != 0
+                || (Attacks.kingAttacks(square) & pieceBoards[teamOffset + ChessPiece.PieceType.KING.ordinal()]) != 0
+                || (Attacks.rookAttacks(square, occupied)
+                    & (pieceBoards[teamOffset + ChessPiece.PieceType.ROOK.ordinal()] | queens)) != 0
+                || (Attacks.bishopAttacks(square, occupied)
+                    & (pieceBoards[teamOffset + ChessPiece.PieceType.BISHOP.ordinal()] | queens)) != 0;
+    }
+
+    @Override
+    public void movePiece(ChessMove move) {
+        var fromSquare = squareIndex(move.getStartPosition());
+        var toSquare = squareIndex(move.getEndPosition());
+        var movingIndex = pieceIndexAt(fromSquare);
+        if (movingIndex < 0)
+            throw new RuntimeException("Tried to move nothing (empty space)");
+        if (move.getPromotionPiece() != null)
+            movingIndex = pieceIndex(pieces[movingIndex].getTeamColor(), move.getPromotionPiece());
+        clearSquare(fromSquare);
+        clearSquare(toSquare);
+        placePiece(toSquare, movingIndex);
+    }
+
+    @Override
+    public void resetBoard() {
+        Arrays.fill(pieceBoards, 0L);
+        teamBoards[0] = 0L;
+        teamBoards[1] = 0L;
+        occupied = 0L;
+        zobristKey = 0L;
+        zobristKeyValid = true;
+
+        ChessPiece.PieceType[] backRow = {
+                ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING, ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK
+        };
+        for (int col = 0; col < 8; col++) {
+            placePiece(col, pieceIndex(ChessGame.TeamColor.WHITE, backRow[col]));
+            placePiece(8 + col, pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            placePiece(48 + col, pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            placePiece(56 + col, pieceIndex(ChessGame.TeamColor.BLACK, backRow[col]));
+        }
+    }
+
+    @Override
+    public long getZobristKey() {
+        if (!zobristKeyValid) {
+            zobristKey = Zobrist.hashPieces(this);
+            zobristKeyValid = true;
+        }
+        return zobristKey;
+    }
+
+    /**
+     * @param teamColor the team to get the occupancy of
+     * @return a mask of every square holding a piece of the given team
+     */
+    public long getTeamOccupancy(ChessGame.TeamColor teamColor) {
+        return teamBoards[teamColor.ordinal()];
+    }
+
+    /**
+     * @return a mask of every occupied square
+     */
+    public long getOccupancy() {
+        return occupied;
+    }
+
+    /**
+     * @param teamColor the team of the pieces
+     * @param type the type of the pieces
+     * @return a mask of every square holding a piece of the given team and type
+     */
+    public long getPieceBoard(ChessGame.TeamColor teamColor, ChessPiece.PieceType type) {
+        return pieceBoards[pieceIndex(teamColor, type)];
+    }
+
+    public String boardToString(boolean isWhitePerspective) {
+        StringBuilder stringBuilder = new StringBuilder();
+        var startRow = isWhitePerspective ? 8 : 1;
+        var rowIncrement = isWhitePerspective ? -1 : 1;
+        for (int row = startRow; isWhitePerspective ? (row >= 1) : (row <= 8); row += rowIncrement) {
+            stringBuilder.append('|');
+            for (int col = 1; col <= 8; col++) {
+                var pieceIndex = pieceIndexAt((row - 1) * 8 + col - 1);
+                if (pieceIndex >= 0) {
+                    var piece = pieces[pieceIndex];
+                    var pieceCharacter = switch (piece.getPieceType()) {
+                        case KING -> 'k';
+                        case QUEEN -> 'q';
+                        case BISHOP -> 'b';
+                        case KNIGHT -> 'n';
+                        case ROOK -> 'r';
+                        case PAWN -> 'p';
+                    };
+                    if (piece.getTeamColor() == ChessGame.TeamColor.WHITE)
+                        pieceCharacter = Character.toUpperCase(pieceCharacter);
+                    stringBuilder.append(pieceCharacter);
+                }
+                else
+                    stringBuilder.append(' ');
+                stringBuilder.append('|');
+            }
+            stringBuilder.append('\n');
+        }
+        return stringBuilder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return boardToString(true);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(pieceBoards, ((BitboardChessBoard) o).pieceBoards);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(getZobristKey());
+    }
+}
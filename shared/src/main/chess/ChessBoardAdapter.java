@@ -0,0 +1,126 @@
+package chess;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Streams boards to and from the same JSON the reflective adapters produced, with a "type" naming the
+ * implementation:
+ * {"type":"ChessBoardImpl","boardSpaces":[[row 8 pieces], ..., [row 1 pieces]]} or
+ * {"type":"BitboardChessBoard","pieceBoards":[...],"teamBoards":[...],"occupied":...}.
+ * Boards without a type were saved before there was more than one implementation and are read as ChessBoardImpl.
+ */
+public class ChessBoardAdapter extends TypeAdapter<ChessBoard> {
+    private static final String ARRAY_BOARD_TYPE = ChessBoardImpl.class.getSimpleName();
+    private static final String BITBOARD_TYPE = BitboardChessBoard.class.getSimpleName();
+
+    private final ChessPieceAdapter pieceAdapter = new ChessPieceAdapter();
+
+    @Override
+    public void write(JsonWriter jsonWriter, ChessBoard board) throws IOException {
+        if (board == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+
+        jsonWriter.beginObject();
+        if (board instanceof BitboardChessBoard bitboard) {
+            jsonWriter.name("type").value(BITBOARD_TYPE);
+            jsonWriter.name("pieceBoards").beginArray();
+            for (ChessGame.TeamColor teamColor : ChessGame.TeamColor.values()) {
+                for (ChessPiece.PieceType type : ChessPiece.PieceType.values())
+                    jsonWriter.value(bitboard.getPieceBoard(teamColor, type));
+            }
+            jsonWriter.endArray();
+            jsonWriter.name("teamBoards").beginArray();
+            for (ChessGame.TeamColor teamColor : ChessGame.TeamColor.values())
+                jsonWriter.value(bitboard.getTeamOccupancy(teamColor));
+            jsonWriter.endArray();
+            jsonWriter.name("occupied").value(bitboard.getOccupancy());
+        } else {
+            jsonWriter.name("type").value(ARRAY_BOARD_TYPE);
+            jsonWriter.name("boardSpaces").beginArray();
+            for (int row = 7; row >= 0; row--) {
+                jsonWriter.beginArray();
+                for (int col = 0; col < 8; col++)
+                    pieceAdapter.write(jsonWriter, board.getPiece(row * 8 + col));
+                jsonWriter.endArray();
+            }
+            jsonWriter.endArray();
+        }
+        jsonWriter.endObject();
+    }
+
+    @Override
+    public ChessBoard read(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+
+        // The type isn't guaranteed to come first, so collect the pieces and build the board at the end
+        String type = ARRAY_BOARD_TYPE;
+        ChessPiece[] squares = new ChessPiece[64];
+        long[] pieceBoards = null;
+
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            switch (jsonReader.nextName()) {
+                case "type" -> type = jsonReader.nextString();
+                case "boardSpaces" -> {
+                    jsonReader.beginArray();
+                    for (int row = 7; jsonReader.hasNext(); row--) {
+                        jsonReader.beginArray();
+                        for (int col = 0; jsonReader.hasNext(); col++) {
+                            var piece = pieceAdapter.read(jsonReader);
+                            if (row >= 0 && col < 8)
+                                squares[row * 8 + col] = piece;
+                        }
+                        jsonReader.endArray();
+                    }
+                    jsonReader.endArray();
+                }
+                case "pieceBoards" -> {
+                    pieceBoards = new long[12];
+                    jsonReader.beginArray();
+                    for (int i = 0; jsonReader.hasNext(); i++) {
+                        var pieceBoard = jsonReader.nextLong();
+                        if (i < pieceBoards.length)
+                            pieceBoards[i] = pieceBoard;
+                    }
+                    jsonReader.endArray();
+                }
+                // teamBoards and occupied are derived from the piece boards
+                default -> jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+
+        ChessBoard board;
+        if (type.equals(BITBOARD_TYPE))
+            board = new BitboardChessBoard();
+        else if (type.equals(ARRAY_BOARD_TYPE))
+            board = new ChessBoardImpl();
+        else
+            throw new JsonParseException("Unknown board type " + type);
+
+        if (pieceBoards != null) {
+            for (int pieceIndex = 0; pieceIndex < pieceBoards.length; pieceIndex++) {
+                var piece = ChessPieceImpl.getInstance(ChessGame.TeamColor.values()[pieceIndex / 6],
+                        ChessPiece.PieceType.values()[pieceIndex % 6]);
+                for (long mask = pieceBoards[pieceIndex]; mask != 0; mask &= mask - 1)
+                    squares[Long.numberOfTrailingZeros(mask)] = piece;
+            }
+        }
+        for (int square = 0; square < 64; square++) {
+            if (squares[square] != null)
+                board.setPiece(square, squares[square]);
+        }
+        return board;
+    }
+}
@@ -1,5 +1,6 @@
 package chess;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,11 +17,18 @@ public class ChessBoardImpl implements ChessBoard {
     }
 
     private final ChessPiece[][] boardSpaces = new ChessPieceImpl[8][8];
+    // Last known king squares, checked before use so they never need updating
+    private final transient int[] kingSquares = {-1, -1};
+    // Hash of the pieces, computed on first use (boards from JSON start without one) and then kept up to date
+    private transient long zobristKey;
+    private transient boolean zobristKeyValid = false;
 
     @Override
     public void addPiece(ChessPosition position, ChessPiece piece) {
         if (getPiece(position) == null) {
             boardSpaces[rowToArrayIndex(position.getRow())][columnToArrayIndex(position.getColumn())] = piece;
+            if (zobristKeyValid)
+                zobristKey ^= Zobrist.pieceKey(piece, ChessPositionImpl.toSquare(position));
         }
     }
 
@@ -34,19 +42,21 @@ public class ChessBoardImpl implements ChessBoard {
         if (movingPiece == null)
             throw new RuntimeException("Tried to move nothing (empty space)");
         var teamColor = movingPiece.getTeamColor();
+        if (zobristKeyValid) {
+            var fromSquare = ChessPositionImpl.toSquare(move.getStartPosition());
+            var toSquare = ChessPositionImpl.toSquare(move.getEndPosition());
+            zobristKey ^= Zobrist.pieceKey(movingPiece, fromSquare)
+                    ^ Zobrist.pieceKey(boardSpaces[toRowIndex][toColIndex], toSquare);
+        }
         if (move.getPromotionPiece() != null) {
-            boardSpaces[toRowIndex][toColIndex] = switch(move.getPromotionPiece()) {
-                case KING -> new King(teamColor);
-                case QUEEN -> new Queen(teamColor);
-                case BISHOP -> new Bishop(teamColor);
-                case KNIGHT -> new Knight(teamColor);
-                case ROOK -> new Rook(teamColor);
-                case PAWN -> new Pawn(teamColor);
-            };
+            boardSpaces[toRowIndex][toColIndex] = ChessPieceImpl.getInstance(teamColor, move.getPromotionPiece());
         }
         else
             boardSpaces[toRowIndex][toColIndex] = boardSpaces[fromRowIndex][fromColIndex];
         boardSpaces[fromRowIndex][fromColIndex] = null;
+        if (zobristKeyValid)
+            zobristKey ^= Zobrist.pieceKey(boardSpaces[toRowIndex][toColIndex],
+                    ChessPositionImpl.toSquare(move.getEndPosition()));
     }
 
     @Override
@@ -54,18 +64,54 @@ public class ChessBoardImpl implements ChessBoard {
         return boardSpaces[rowToArrayIndex(position.getRow())][columnToArrayIndex(position.getColumn())];
     }
 
+    @Override
+    public ChessPiece getPiece(int square) {
+        return boardSpaces[7 - square / 8][square % 8];
+    }
+
+    @Override
+    public void setPiece(int square, ChessPiece piece) {
+        if (zobristKeyValid)
+            zobristKey ^= Zobrist.pieceKey(getPiece(square), square) ^ Zobrist.pieceKey(piece, square);
+        boardSpaces[7 - square / 8][square % 8] = piece;
+    }
+
+    @Override
+    public long getZobristKey() {
+        if (!zobristKeyValid) {
+            zobristKey = Zobrist.hashPieces(this);
+            zobristKeyValid = true;
+        }
+        return zobristKey;
+    }
+
     @Override
     public ChessPosition findKing(ChessGame.TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                var position = new ChessPositionImpl(row, col);
-                ChessPiece piece = getPiece(position);
-                if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING
-                        && piece.getTeamColor() == teamColor)
-                    return position;
+        var square = findKingSquare(teamColor);
+        return square < 0 ? null : ChessPositionImpl.fromSquare(square);
+    }
+
+    @Override
+    public int findKingSquare(ChessGame.TeamColor teamColor) {
+        var cachedSquare = kingSquares[teamColor.ordinal()];
+        if (cachedSquare >= 0 && isKing(getPiece(cachedSquare), teamColor))
+            return cachedSquare;
+        for (int square = 0; square < 64; square++) {
+            if (isKing(getPiece(square), teamColor)) {
+                kingSquares[teamColor.ordinal()] = square;
+                return square;
             }
         }
-        return null;
+        return -1;
+    }
+
+    private static boolean isKing(ChessPiece piece, ChessGame.TeamColor teamColor) {
+        return piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && piece.getTeamColor() == teamColor;
+    }
+
+    @Override
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor attackingTeam) {
+        return Attacks.isSquareAttacked(this, square, attackingTeam);
     }
 
     private int rowToArrayIndex(int row) {
@@ -84,31 +130,33 @@ public class ChessBoardImpl implements ChessBoard {
                 boardSpaces[rowIndex][colIndex] = null;
             }
         }
+        zobristKey = 0L;
+        zobristKeyValid = true;
 
         // Add pieces at default positions
         for (int row = 1; row <= 8; row++) {
             for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPositionImpl(row, col);
+                ChessPosition position = ChessPositionImpl.of(row, col);
                 ChessGame.TeamColor teamColor = row > 2 ? (ChessGame.TeamColor.BLACK):(ChessGame.TeamColor.WHITE);
                 boolean isStartRow = row < 3 || row > 6;
                 boolean isPawnRow = row == 2 || row == 7;
                 if (isStartRow) {
                     if (isPawnRow)
-                        addPiece(position, new Pawn(teamColor));
+                        addPiece(position, ChessPieceImpl.getInstance(teamColor, ChessPiece.PieceType.PAWN));
                     else if (col == 1 || col == 8) {
-                        addPiece(position, new Rook(teamColor));
+                        addPiece(position, ChessPieceImpl.getInstance(teamColor, ChessPiece.PieceType.ROOK));
                     }
                     else if (col == 2 || col == 7) {
-                        addPiece(position, new Knight(teamColor));
+                        addPiece(position, ChessPieceImpl.getInstance(teamColor, ChessPiece.PieceType.KNIGHT));
                     }
                     else if (col == 3 || col == 6) {
-                        addPiece(position, new Bishop(teamColor));
+                        addPiece(position, ChessPieceImpl.getInstance(teamColor, ChessPiece.PieceType.BISHOP));
                     }
                     else if (col == 4) {
-                        addPiece(position, new Queen(teamColor));
+                        addPiece(position, ChessPieceImpl.getInstance(teamColor, ChessPiece.PieceType.QUEEN));
                     }
                     else // col == 5
-                        addPiece(position, new King(teamColor));
+                        addPiece(position, ChessPieceImpl.getInstance(teamColor, ChessPiece.PieceType.KING));
                 }
             }
         }
@@ -121,7 +169,7 @@ public class ChessBoardImpl implements ChessBoard {
         for (int row = startRow; isWhitePerspective ? (row >= 1) : (row <= 8); row += rowIncrement) {
             stringBuilder.append('|');
             for (int col = 1; col <= 8; col++) {
-                var piece = getPiece(new ChessPositionImpl(row, col));
+                var piece = getPiece(ChessPositionImpl.toSquare(row, col));
                 if (piece != null) {
                     var pieceCharacter = pieceCharacters.get(piece.getPieceType());
                     if (piece.getTeamColor() == ChessGame.TeamColor.WHITE)
@@ -141,4 +189,17 @@ public class ChessBoardImpl implements ChessBoard {
     public String toString() {
         return boardToString(true);
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ChessBoardImpl that = (ChessBoardImpl) o;
+        return getZobristKey() == that.getZobristKey() && Arrays.deepEquals(boardSpaces, that.boardSpaces);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(getZobristKey());
+    }
 }
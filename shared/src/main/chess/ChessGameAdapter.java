@@ -0,0 +1,76 @@
+package chess;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Streams games to and from the same JSON the reflective adapters produced:
+ * {"type":"ChessGameImpl","currentTurnColor":..,"board":{..},"castlingRights":..,"enPassantSquare":..}
+ */
+public class ChessGameAdapter extends TypeAdapter<ChessGame> {
+    private static final String GAME_TYPE = ChessGameImpl.class.getSimpleName();
+
+    private final ChessBoardAdapter boardAdapter = new ChessBoardAdapter();
+
+    @Override
+    public void write(JsonWriter jsonWriter, ChessGame game) throws IOException {
+        if (game == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+
+        var gameImpl = (ChessGameImpl) game;
+        jsonWriter.beginObject();
+        jsonWriter.name("type").value(GAME_TYPE);
+        jsonWriter.name("currentTurnColor").value(gameImpl.getTeamTurn().name());
+        if (gameImpl.getBoard() != null) {
+            jsonWriter.name("board");
+            boardAdapter.write(jsonWriter, gameImpl.getBoard());
+        }
+        jsonWriter.name("castlingRights").value(gameImpl.getCastlingRights());
+        jsonWriter.name("enPassantSquare").value(gameImpl.getEnPassantSquare());
+        jsonWriter.endObject();
+    }
+
+    @Override
+    public ChessGame read(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+
+        var turnColor = ChessGame.TeamColor.WHITE;
+        ChessBoard board = null;
+        var castlingRights = ChessGameImpl.ALL_CASTLING_RIGHTS;
+        var enPassantSquare = -1;
+
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            switch (jsonReader.nextName()) {
+                case "type" -> {
+                    var type = jsonReader.nextString();
+                    if (!type.equals(GAME_TYPE))
+                        throw new JsonParseException("Unknown game type " + type);
+                }
+                case "currentTurnColor" -> turnColor = ChessGame.TeamColor.valueOf(jsonReader.nextString());
+                case "board" -> board = boardAdapter.read(jsonReader);
+                case "castlingRights" -> castlingRights = jsonReader.nextInt();
+                case "enPassantSquare" -> enPassantSquare = jsonReader.nextInt();
+                default -> jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+
+        var game = new ChessGameImpl();
+        game.setBoard(board);
+        game.setTeamTurn(turnColor);
+        game.setCastlingRights(castlingRights);
+        game.setEnPassantSquare(enPassantSquare);
+        return game;
+    }
+}
@@ -7,37 +7,84 @@ import com.google.gson.typeadapters.RuntimeTypeAdapterFactory;
 import java.util.*;
 
 public class ChessGameImpl implements ChessGame {
-    private TeamColor currentTurnColor = TeamColor.WHITE;
-    private ChessBoardImpl board;
+    public static final int WHITE_KINGSIDE_CASTLE = 1;
+    public static final int WHITE_QUEENSIDE_CASTLE = 2;
+    public static final int BLACK_KINGSIDE_CASTLE = 4;
+    public static final int BLACK_QUEENSIDE_CASTLE = 8;
+    public static final int ALL_CASTLING_RIGHTS = 15;
+    /**
+     * Enough room for every legal move in any reachable position (the known maximum is 218)
+     */
+    public static final int MAX_POSITION_MOVES = 256;
 
-    private static final Gson gameAdapter;
+    // Castling rights that survive a move touching each square (moving or capturing a king or rook loses them)
+    private static final int[] castlingRightsKept = new int[64];
     static {
-        final RuntimeTypeAdapterFactory<ChessGame> gameTypeFactory = RuntimeTypeAdapterFactory
-                .of(ChessGame.class, "type")
-                .registerSubtype(ChessGameImpl.class);
+        Arrays.fill(castlingRightsKept, ALL_CASTLING_RIGHTS);
+        castlingRightsKept[0] &= ~WHITE_QUEENSIDE_CASTLE;
+        castlingRightsKept[4] &= ~(WHITE_KINGSIDE_CASTLE | WHITE_QUEENSIDE_CASTLE);
+        castlingRightsKept[7] &= ~WHITE_KINGSIDE_CASTLE;
+        castlingRightsKept[56] &= ~BLACK_QUEENSIDE_CASTLE;
+        castlingRightsKept[60] &= ~(BLACK_KINGSIDE_CASTLE | BLACK_QUEENSIDE_CASTLE);
+        castlingRightsKept[63] &= ~BLACK_KINGSIDE_CASTLE;
+    }
+
+    private TeamColor currentTurnColor = TeamColor.WHITE;
+    private ChessBoard board;
+    private int castlingRights = ALL_CASTLING_RIGHTS;
+    // Square a pawn skipped over with a double move last turn, or -1
+    private int enPassantSquare = -1;
+
+    // Scratch space for move generation, reused between calls
+    private final transient int[] moveBuffer = new int[ChessPieceImpl.MAX_PIECE_MOVES];
+
+    // Undo stack for makeMove(int)/unmakeMove(), grown as needed and then reused
+    private transient int undoCount = 0;
+    private transient int[] undoMoves = new int[64];
+    private transient ChessPiece[] undoCapturedPieces = new ChessPiece[64];
+    private transient int[] undoStates = new int[64];
 
-        final RuntimeTypeAdapterFactory<ChessPosition> chessPositionFactory = RuntimeTypeAdapterFactory
-                .of(ChessPosition.class, "type")
-                .registerSubtype(ChessPositionImpl.class);
+    // Moves made through makeMove(ChessMove), the first one at ply firstPlayedPly, so they can be stored one by one
+    private transient int firstPlayedPly = 0;
+    private transient int playedMoveCount = 0;
+    private transient int[] playedMoves = new int[16];
 
+    // Shared by every game when set; positions are only analyzed for the team whose turn it is
+    private static volatile PositionCache positionCache;
+
+    private static final Gson gameAdapter;
+    static {
         final RuntimeTypeAdapterFactory<ChessMove> chessMoveFactory = RuntimeTypeAdapterFactory
                 .of(ChessMove.class, "type")
                 .registerSubtype(ChessMoveImpl.class);
 
-        final RuntimeTypeAdapterFactory<ChessBoard> boardTypeFactory = RuntimeTypeAdapterFactory
-                .of(ChessBoard.class, "type")
-                .registerSubtype(ChessBoardImpl.class);
-
+        // The hand-written adapters are registered for the implementations too, otherwise Gson would prefer
+        // a reflective adapter for the runtime type of a field and drop the "type" tag
         GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapterFactory(gameTypeFactory);
-        builder.registerTypeAdapterFactory(chessPositionFactory);
         builder.registerTypeAdapterFactory(chessMoveFactory);
-        builder.registerTypeAdapterFactory(boardTypeFactory);
+        var gameTypeAdapter = new ChessGameAdapter();
+        builder.registerTypeAdapter(ChessGame.class, gameTypeAdapter);
+        builder.registerTypeAdapter(ChessGameImpl.class, gameTypeAdapter);
+        var boardAdapter = new ChessBoardAdapter();
+        builder.registerTypeAdapter(ChessBoard.class, boardAdapter);
+        builder.registerTypeAdapter(ChessBoardImpl.class, boardAdapter);
+        builder.registerTypeAdapter(BitboardChessBoard.class, boardAdapter);
         builder.registerTypeAdapter(ChessPiece.class, new ChessPieceAdapter());
+        var positionAdapter = new ChessPositionAdapter();
+        builder.registerTypeAdapter(ChessPosition.class, positionAdapter);
+        builder.registerTypeAdapter(ChessPositionImpl.class, positionAdapter);
         gameAdapter = builder.create();
     }
     public static Gson getGsonAdapter() { return gameAdapter; }
 
+    /**
+     * Sets the cache every game consults for legal moves and check status, or null to always compute them
+     * @param cache the cache to share between games
+     */
+    public static void setPositionCache(PositionCache cache) { positionCache = cache; }
+
+    public static PositionCache getPositionCache() { return positionCache; }
+
     @Override
     public TeamColor getTeamTurn() {
         return currentTurnColor;
@@ -50,67 +97,144 @@ public class ChessGameImpl implements ChessGame {
 
     @Override
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        var piece = board.getPiece(startPosition);
+        var square = ChessPositionImpl.toSquare(startPosition);
+        var piece = board.getPiece(square);
+        if (piece != null && positionCache != null && piece.getTeamColor() == currentTurnColor) {
+            ArrayList<ChessMove> validMoves = new ArrayList<>();
+            for (int move : analyzePosition().legalMoves()) {
+                if (ChessMoveImpl.getStartSquare(move) == square)
+                    validMoves.add(ChessMoveImpl.decode(move));
+            }
+            return validMoves;
+        }
         if (piece != null) {
-            var pieceMoves = piece.pieceMoves(board, startPosition);
-            ArrayList<ChessMove> invalidMoves = new ArrayList<>();
-            for (ChessMove move : pieceMoves) {
-                // Make hypothetical move
-                var takenPiece = board.getPiece(move.getEndPosition());
-                ((ChessBoardImpl)board).movePiece(move);
-
-                var nowInCheck = isInCheck(piece.getTeamColor());
-
-                // Undo hypothetical move
-                board.movePiece(new ChessMoveImpl(
-                        move.getEndPosition(),
-                        move.getStartPosition(),
-                        piece.getPieceType()
-                ));
-                if (takenPiece != null)
-                    board.addPiece(move.getEndPosition(), takenPiece);
-
-                if (nowInCheck)
-                    invalidMoves.add(move);
+            var moveCount = generatePieceMoves(square, piece, moveBuffer, 0);
+            ArrayList<ChessMove> validMoves = new ArrayList<>(moveCount);
+            for (int i = 0; i < moveCount; i++) {
+                if (!leavesKingInCheck(moveBuffer[i], piece.getTeamColor()))
+                    validMoves.add(ChessMoveImpl.decode(moveBuffer[i]));
             }
-            pieceMoves.removeAll(invalidMoves);
-            return pieceMoves;
+            return validMoves;
         }
         return null;
     }
 
-    @Override
-    public void makeMove(ChessMove move) throws InvalidMoveException {
-        var piece = board.getPiece(move.getStartPosition());
-        if (piece != null && getTeamTurn() != piece.getTeamColor())
-            throw new InvalidMoveException("Not " + piece.getTeamColor() + "'s turn");
+    /**
+     * Generates the moves of a piece including castling and en passant, without checking if they leave
+     * the king in check
+     * @return the new number of moves in the buffer
+     */
+    private int generatePieceMoves(int square, ChessPiece piece, int[] moves, int moveCount) {
+        moveCount = ((ChessPieceImpl) piece).pieceMoves(board, square, moves, moveCount);
+        switch (piece.getPieceType()) {
+            case KING -> moveCount = addCastlingMoves(square, piece.getTeamColor(), moves, moveCount);
+            case PAWN -> moveCount = addEnPassantMove(square, piece.getTeamColor(), moves, moveCount);
+        }
+        return moveCount;
+    }
 
-        var validMoves = validMoves(move.getStartPosition());
-        if (validMoves == null)
-            throw new InvalidMoveException("Empty space");
-        else {
-            Set<ChessMove> validMovesSet = new HashSet<>(validMoves);
-            if (validMovesSet.contains(move)) {
-                board.movePiece(move);
-                setTeamTurn(currentTurnColor == TeamColor.WHITE ? TeamColor.BLACK:TeamColor.WHITE);
+    private int addCastlingMoves(int square, TeamColor teamColor, int[] moves, int moveCount) {
+        var homeSquare = teamColor == TeamColor.WHITE ? 4 : 60;
+        var kingsideRight = teamColor == TeamColor.WHITE ? WHITE_KINGSIDE_CASTLE : BLACK_KINGSIDE_CASTLE;
+        var queensideRight = teamColor == TeamColor.WHITE ? WHITE_QUEENSIDE_CASTLE : BLACK_QUEENSIDE_CASTLE;
+        if (square != homeSquare || (castlingRights & (kingsideRight | queensideRight)) == 0)
+            return moveCount;
+
+        var opponent = Attacks.opponent(teamColor);
+        if (board.isSquareAttacked(square, opponent))
+            return moveCount;
+
+        // The king can't pass through or land on an attacked square, and the path to the rook must be clear
+        if ((castlingRights & kingsideRight) != 0 && isTeamRook(board.getPiece(square + 3), teamColor)
+                && board.getPiece(square + 1) == null && board.getPiece(square + 2) == null
+                && !board.isSquareAttacked(square + 1, opponent) && !board.isSquareAttacked(square + 2, opponent))
+            moves[moveCount++] = ChessMoveImpl.encode(square, square + 2, null, ChessMoveImpl.FLAG_CASTLE);
+        if ((castlingRights & queensideRight) != 0 && isTeamRook(board.getPiece(square - 4), teamColor)
+                && board.getPiece(square - 1) == null && board.getPiece(square - 2) == null
+                && board.getPiece(square - 3) == null
+                && !board.isSquareAttacked(square - 1, opponent) && !board.isSquareAttacked(square - 2, opponent))
+            moves[moveCount++] = ChessMoveImpl.encode(square, square - 2, null, ChessMoveImpl.FLAG_CASTLE);
+        return moveCount;
+    }
+
+    private static boolean isTeamRook(ChessPiece piece, TeamColor teamColor) {
+        return piece != null && piece.getPieceType() == ChessPiece.PieceType.ROOK && piece.getTeamColor() == teamColor;
+    }
+
+    private int addEnPassantMove(int square, TeamColor teamColor, int[] moves, int moveCount) {
+        if (enPassantSquare < 0)
+            return moveCount;
+        // White double moves skip row 3, so only black pawns can take them (and vice versa)
+        var capturingTeam = enPassantSquare / 8 == 2 ? TeamColor.BLACK : TeamColor.WHITE;
+        var rowDirection = capturingTeam == TeamColor.WHITE ? 1 : -1;
+        if (teamColor == capturingTeam && square / 8 + rowDirection == enPassantSquare / 8
+                && Math.abs(square % 8 - enPassantSquare % 8) == 1)
+            moves[moveCount++] = ChessMoveImpl.encode(square, enPassantSquare, null,
+                    ChessMoveImpl.FLAG_EN_PASSANT | ChessMoveImpl.FLAG_CAPTURE);
+        return moveCount;
+    }
+
+    private boolean leavesKingInCheck(int move, TeamColor teamColor) {
+        makeMove(move);
+        var nowInCheck = isInCheck(teamColor);
+        unmakeMove();
+        return nowInCheck;
+    }
+
+    /**
+     * Generates every legal move for the team whose turn it is, without allocating
+     * @param moves buffer to write encoded moves into, needs room for {@link #MAX_POSITION_MOVES} moves
+     * @return the number of moves written
+     */
+    public int legalMoves(int[] moves) {
+        var moveCount = 0;
+        for (int square = 0; square < 64; square++) {
+            var piece = board.getPiece(square);
+            if (piece != null && piece.getTeamColor() == currentTurnColor) {
+                var firstMove = moveCount;
+                moveCount = generatePieceMoves(square, piece, moves, moveCount);
+                // Compact out the moves that leave the king in check
+                var keptCount = firstMove;
+                for (int i = firstMove; i < moveCount; i++) {
+                    if (!leavesKingInCheck(moves[i], piece.getTeamColor()))
+                        moves[keptCount++] = moves[i];
+                }
+                moveCount = keptCount;
             }
-            else
-                throw new InvalidMoveException("Move not an option");
         }
+        return moveCount;
     }
 
-    @Override
-    public boolean isInCheck(TeamColor teamColor) {
-        var kingPosition = board.findKing(teamColor);
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                var position = new ChessPositionImpl(row, col);
-                var piece = board.getPiece(position);
-                if (piece != null && piece.getTeamColor() != teamColor) {
-                    for (ChessMove move : piece.pieceMoves(board, position)) {
-                        if (move.getEndPosition().equals(kingPosition))
-                            return true;
-                    }
+    /**
+     * Gets the legal moves and check status for the team whose turn it is, from the position cache if one
+     * is set (computing and storing them on a miss)
+     * @return the analysis of the current position
+     */
+    public PositionCache.Entry analyzePosition() {
+        var cache = positionCache;
+        var positionHash = cache == null ? 0L : getPositionHash();
+        var entry = cache == null ? null : cache.get(positionHash);
+        if (entry == null) {
+            int[] moves = new int[MAX_POSITION_MOVES];
+            var moveCount = legalMoves(moves);
+            entry = new PositionCache.Entry(Arrays.copyOf(moves, moveCount), isInCheck(currentTurnColor));
+            if (cache != null)
+                cache.put(positionHash, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Determines if a team has any move that doesn't leave its king in check, stopping at the first one found
+     */
+    private boolean hasValidMove(TeamColor teamColor) {
+        for (int square = 0; square < 64; square++) {
+            var piece = board.getPiece(square);
+            if (piece != null && piece.getTeamColor() == teamColor) {
+                var moveCount = generatePieceMoves(square, piece, moveBuffer, 0);
+                for (int i = 0; i < moveCount; i++) {
+                    if (!leavesKingInCheck(moveBuffer[i], teamColor))
+                        return true;
                 }
             }
         }
@@ -118,66 +242,266 @@ public class ChessGameImpl implements ChessGame {
     }
 
     @Override
-    public boolean isInCheckmate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            for (int row = 1; row <= 8; row++) {
-                for (int col = 1; col <= 8; col++) {
-                    var position = new ChessPositionImpl(row, col);
-                    var piece = board.getPiece(position);
-                    if (piece != null && piece.getTeamColor() == teamColor) {
-                        for (ChessMove move : validMoves(position)) {
-                            // Make hypothetical move
-                            var takenPiece = board.getPiece(move.getEndPosition());
-                            board.movePiece(move);
-
-                            var stillInCheck = isInCheck(teamColor);
-
-                            // Undo hypothetical move
-                            board.movePiece(new ChessMoveImpl(
-                                    move.getEndPosition(),
-                                    move.getStartPosition(),
-                                    piece.getPieceType()
-                            ));
-                            if (takenPiece != null)
-                                board.addPiece(move.getEndPosition(), takenPiece);
-
-                            if (!stillInCheck)
-                                return false;
-                        }
-                    }
+    public void makeMove(ChessMove move) throws InvalidMoveException {
+        var square = ChessPositionImpl.toSquare(move.getStartPosition());
+        var piece = board.getPiece(square);
+        if (piece == null)
+            throw new InvalidMoveException("Empty space");
+        if (getTeamTurn() != piece.getTeamColor())
+            throw new InvalidMoveException("Not " + piece.getTeamColor() + "'s turn");
+
+        var requestedMove = ChessMoveImpl.encode(move);
+        if (positionCache != null) {
+            for (int legalMove : analyzePosition().legalMoves()) {
+                if (ChessMoveImpl.withoutFlags(legalMove) == requestedMove) {
+                    makeMove(legalMove);
+                    undoCount = 0;
+                    recordPlayedMove(legalMove);
+                    return;
                 }
             }
-            return true;
+            throw new InvalidMoveException("Move not an option");
         }
-        return false;
+        var moveCount = generatePieceMoves(square, piece, moveBuffer, 0);
+        for (int i = 0; i < moveCount; i++) {
+            var candidateMove = moveBuffer[i];
+            if (ChessMoveImpl.withoutFlags(candidateMove) == requestedMove
+                    && !leavesKingInCheck(candidateMove, piece.getTeamColor())) {
+                makeMove(candidateMove);
+                // Moves made through this method are permanent, so their undo records aren't needed
+                undoCount = 0;
+                recordPlayedMove(candidateMove);
+                return;
+            }
+        }
+        throw new InvalidMoveException("Move not an option");
+    }
+
+    /**
+     * Makes an encoded move without checking that it is valid, recording what is needed to undo it.
+     * Handles captures, promotion, castling and en passant based on the move's flags.
+     * @param move an encoded move from move generation, see {@link ChessMoveImpl#encode}
+     */
+    public void makeMove(int move) {
+        var startSquare = ChessMoveImpl.getStartSquare(move);
+        var endSquare = ChessMoveImpl.getEndSquare(move);
+        var piece = board.getPiece(startSquare);
+        var teamColor = piece.getTeamColor();
+        var captureSquare = ChessMoveImpl.hasFlag(move, ChessMoveImpl.FLAG_EN_PASSANT)
+                ? endSquare + (teamColor == TeamColor.WHITE ? -8 : 8) : endSquare;
+        var capturedPiece = board.getPiece(captureSquare);
+
+        if (undoCount == undoMoves.length) {
+            undoMoves = Arrays.copyOf(undoMoves, undoCount * 2);
+            undoCapturedPieces = Arrays.copyOf(undoCapturedPieces, undoCount * 2);
+            undoStates = Arrays.copyOf(undoStates, undoCount * 2);
+        }
+        undoMoves[undoCount] = move;
+        undoCapturedPieces[undoCount] = capturedPiece;
+        undoStates[undoCount] = packState();
+        undoCount++;
+
+        if (capturedPiece != null)
+            board.setPiece(captureSquare, null);
+        board.setPiece(startSquare, null);
+        var promotionPiece = ChessMoveImpl.getPromotionPiece(move);
+        board.setPiece(endSquare, promotionPiece == null ? piece : ChessPieceImpl.getInstance(teamColor, promotionPiece));
+
+        if (ChessMoveImpl.hasFlag(move, ChessMoveImpl.FLAG_CASTLE)) {
+            var kingside = endSquare > startSquare;
+            var rookSquare = kingside ? startSquare + 3 : startSquare - 4;
+            board.setPiece(kingside ? endSquare - 1 : endSquare + 1, board.getPiece(rookSquare));
+            board.setPiece(rookSquare, null);
+        }
+
+        castlingRights &= castlingRightsKept[startSquare] & castlingRightsKept[endSquare];
+        enPassantSquare = ChessMoveImpl.hasFlag(move, ChessMoveImpl.FLAG_DOUBLE_PAWN_PUSH)
+                ? (startSquare + endSquare) / 2 : -1;
+        currentTurnColor = Attacks.opponent(teamColor);
+    }
+
+    /**
+     * Undoes the last move made with {@link #makeMove(int)}, restoring the board, turn, castling rights and
+     * en passant square exactly
+     */
+    public void unmakeMove() {
+        undoCount--;
+        var move = undoMoves[undoCount];
+        var capturedPiece = undoCapturedPieces[undoCount];
+        undoCapturedPieces[undoCount] = null;
+        unpackState(undoStates[undoCount]);
+
+        var startSquare = ChessMoveImpl.getStartSquare(move);
+        var endSquare = ChessMoveImpl.getEndSquare(move);
+        var piece = board.getPiece(endSquare);
+        var teamColor = piece.getTeamColor();
+        if (ChessMoveImpl.getPromotionPiece(move) != null)
+            piece = ChessPieceImpl.getInstance(teamColor, ChessPiece.PieceType.PAWN);
+        board.setPiece(endSquare, null);
+        board.setPiece(startSquare, piece);
+
+        if (capturedPiece != null) {
+            var captureSquare = ChessMoveImpl.hasFlag(move, ChessMoveImpl.FLAG_EN_PASSANT)
+                    ? endSquare + (teamColor == TeamColor.WHITE ? -8 : 8) : endSquare;
+            board.setPiece(captureSquare, capturedPiece);
+        }
+
+        if (ChessMoveImpl.hasFlag(move, ChessMoveImpl.FLAG_CASTLE)) {
+            var kingside = endSquare > startSquare;
+            var rookEndSquare = kingside ? endSquare - 1 : endSquare + 1;
+            board.setPiece(kingside ? startSquare + 3 : startSquare - 4, board.getPiece(rookEndSquare));
+            board.setPiece(rookEndSquare, null);
+        }
+    }
+
+    // Turn in bit 0, castling rights in bits 1-4, en passant square + 1 in bits 5-11
+    private int packState() {
+        return currentTurnColor.ordinal() | castlingRights << 1 | (enPassantSquare + 1) << 5;
+    }
+
+    private void unpackState(int state) {
+        currentTurnColor = (state & 1) == 0 ? TeamColor.WHITE : TeamColor.BLACK;
+        castlingRights = (state >>> 1) & ALL_CASTLING_RIGHTS;
+        enPassantSquare = (state >>> 5) - 1;
+    }
+
+    @Override
+    public boolean isInCheck(TeamColor teamColor) {
+        var kingSquare = board.findKingSquare(teamColor);
+        return kingSquare >= 0 && board.isSquareAttacked(kingSquare, Attacks.opponent(teamColor));
+    }
+
+    @Override
+    public boolean isInCheckmate(TeamColor teamColor) {
+        if (positionCache != null && teamColor == currentTurnColor)
+            return analyzePosition().isCheckmate();
+        return isInCheck(teamColor) && !hasValidMove(teamColor);
     }
 
     @Override
     public boolean isInStalemate(TeamColor teamColor) {
-        if (getTeamTurn() == teamColor) {
-            for (int row = 1; row <= 8; row++) {
-                for (int col = 1; col <= 8; col++) {
-                    var position = new ChessPositionImpl(row, col);
-                    var piece = board.getPiece(position);
-                    if (piece != null && piece.getTeamColor() == teamColor) {
-                        var validMoves = validMoves(position);
-                        if (!validMoves.isEmpty())
-                            return false;
-                    }
-                }
-            }
-            return true;
-        }
-        return false;
+        if (positionCache != null && teamColor == currentTurnColor)
+            return analyzePosition().legalMoves().length == 0;
+        return getTeamTurn() == teamColor && !hasValidMove(teamColor);
     }
 
     @Override
     public void setBoard(ChessBoard board) {
-        this.board = (ChessBoardImpl) board;
+        this.board = board;
+        castlingRights = ALL_CASTLING_RIGHTS;
+        enPassantSquare = -1;
+        undoCount = 0;
+        // The recorded moves no longer lead to this position
+        firstPlayedPly = getPly();
+        playedMoveCount = 0;
+    }
+
+    private void recordPlayedMove(int move) {
+        if (playedMoveCount == playedMoves.length)
+            playedMoves = Arrays.copyOf(playedMoves, playedMoveCount * 2);
+        playedMoves[playedMoveCount++] = move;
+    }
+
+    /**
+     * @return how many moves have been made in the game
+     */
+    public int getPly() {
+        return firstPlayedPly + playedMoveCount;
+    }
+
+    /**
+     * @return the ply of the earliest move still in the move history
+     */
+    public int getFirstPlayedPly() {
+        return firstPlayedPly;
+    }
+
+    /**
+     * Gets the moves made since a point in the game, so they can be stored without storing the whole game
+     * @param fromPly the ply to start from
+     * @return the encoded moves (see {@link ChessMoveImpl#encode}) from that ply on, or null if the history
+     * doesn't reach back that far
+     */
+    public int[] getPlayedMoves(int fromPly) {
+        if (fromPly < firstPlayedPly || fromPly > getPly())
+            return null;
+        return Arrays.copyOfRange(playedMoves, fromPly - firstPlayedPly, playedMoveCount);
+    }
+
+    /**
+     * Replaces the move history without changing the position, for games loaded from storage or copied
+     * @param firstPly the ply of the first move
+     * @param moves the encoded moves made from that ply on, ending at the current position
+     */
+    public void setPlayedMoves(int firstPly, int[] moves) {
+        firstPlayedPly = firstPly;
+        playedMoveCount = moves.length;
+        playedMoves = Arrays.copyOf(moves, Math.max(16, moves.length));
+    }
+
+    /**
+     * Copies the game, including its move history, onto a new board of the same kind. Going through FEN is a
+     * few microseconds, so this is cheap enough to do for every write.
+     * @return a game that shares nothing with this one
+     */
+    public ChessGameImpl copy() {
+        var boardCopy = board instanceof BitboardChessBoard ? new BitboardChessBoard() : new ChessBoardImpl();
+        var copy = FenCodec.decode(FenCodec.encode(this), boardCopy);
+        copy.setPlayedMoves(firstPlayedPly, Arrays.copyOf(playedMoves, playedMoveCount));
+        return copy;
+    }
+
+    /**
+     * @return the castling rights that haven't been lost, as a combination of the _CASTLE constants
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * Sets which castling rights remain, for loading positions that aren't the start of a game
+     * @param castlingRights a combination of the _CASTLE constants
+     */
+    public void setCastlingRights(int castlingRights) {
+        this.castlingRights = castlingRights & ALL_CASTLING_RIGHTS;
+    }
+
+    /**
+     * @return the square a pawn skipped over with a double move last turn, or -1
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * @param enPassantSquare the square a pawn skipped over with a double move last turn, or -1
+     */
+    public void setEnPassantSquare(int enPassantSquare) {
+        this.enPassantSquare = enPassantSquare;
     }
 
     @Override
     public ChessBoard getBoard() {
         return board;
     }
+
+    @Override
+    public long getPositionHash() {
+        var hash = board.getZobristKey() ^ Zobrist.sideToMoveKey(currentTurnColor) ^ Zobrist.castlingKey(castlingRights);
+        if (canCaptureEnPassant())
+            hash ^= Zobrist.enPassantKey(enPassantSquare % 8);
+        return hash;
+    }
+
+    // Only counts en passant when a pawn is next to the one that moved, so positions that can't tell the
+    // difference hash the same
+    private boolean canCaptureEnPassant() {
+        if (enPassantSquare < 0)
+            return false;
+        var capturingTeam = enPassantSquare / 8 == 2 ? TeamColor.BLACK : TeamColor.WHITE;
+        var pawnRowSquare = enPassantSquare + (capturingTeam == TeamColor.WHITE ? -8 : 8);
+        var pawn = ChessPieceImpl.getInstance(capturingTeam, ChessPiece.PieceType.PAWN);
+        return (pawnRowSquare % 8 > 0 && pawn.equals(board.getPiece(pawnRowSquare - 1)))
+                || (pawnRowSquare % 8 < 7 && pawn.equals(board.getPiece(pawnRowSquare + 1)));
+    }
 }
@@ -3,6 +3,18 @@ package chess;
 import java.util.Objects;
 
 public class ChessMoveImpl implements ChessMove {
+    /*
+     * Moves can also be packed into an int so move generation doesn't have to allocate:
+     * bits 0-5 start square, bits 6-11 end square, bits 12-14 promotion piece (PieceType ordinal + 1, 0 for none),
+     * bits 15+ flags. Square indices come from ChessPositionImpl.toSquare.
+     */
+    public static final int FLAG_CAPTURE = 1 << 15;
+    public static final int FLAG_DOUBLE_PAWN_PUSH = 1 << 16;
+    public static final int FLAG_EN_PASSANT = 1 << 17;
+    public static final int FLAG_CASTLE = 1 << 18;
+
+    private static final ChessPiece.PieceType[] pieceTypes = ChessPiece.PieceType.values();
+
     private ChessPosition startPosition;
     private ChessPosition endPosition;
     private ChessPiece.PieceType piecePromotionType;
@@ -13,6 +25,57 @@ public class ChessMoveImpl implements ChessMove {
         piecePromotionType = promotionType;
     }
 
+    /**
+     * Packs a move into an int
+     * @param startSquare square index the piece moves from
+     * @param endSquare square index the piece moves to
+     * @param promotionType type to promote to, or null
+     * @param flags any combination of the FLAG_ constants
+     * @return the encoded move
+     */
+    public static int encode(int startSquare, int endSquare, ChessPiece.PieceType promotionType, int flags) {
+        var promotionBits = promotionType == null ? 0 : promotionType.ordinal() + 1;
+        return startSquare | endSquare << 6 | promotionBits << 12 | flags;
+    }
+
+    /**
+     * Packs a move into an int without any flags
+     * @param move the move to encode
+     * @return the encoded move
+     */
+    public static int encode(ChessMove move) {
+        return encode(ChessPositionImpl.toSquare(move.getStartPosition()),
+                ChessPositionImpl.toSquare(move.getEndPosition()), move.getPromotionPiece(), 0);
+    }
+
+    public static int getStartSquare(int move) { return move & 0x3F; }
+
+    public static int getEndSquare(int move) { return (move >>> 6) & 0x3F; }
+
+    public static ChessPiece.PieceType getPromotionPiece(int move) {
+        var promotionBits = (move >>> 12) & 0x7;
+        return promotionBits == 0 ? null : pieceTypes[promotionBits - 1];
+    }
+
+    public static boolean hasFlag(int move, int flag) { return (move & flag) != 0; }
+
+    /**
+     * Strips the flags from an encoded move, leaving the squares and promotion piece
+     * @param move the encoded move
+     * @return the move without flags
+     */
+    public static int withoutFlags(int move) { return move & 0x7FFF; }
+
+    /**
+     * Unpacks an encoded move
+     * @param move the encoded move
+     * @return a new move object
+     */
+    public static ChessMove decode(int move) {
+        return new ChessMoveImpl(ChessPositionImpl.fromSquare(getStartSquare(move)),
+                ChessPositionImpl.fromSquare(getEndSquare(move)), getPromotionPiece(move));
+    }
+
     @Override
     public ChessPosition getStartPosition() {
         return startPosition;
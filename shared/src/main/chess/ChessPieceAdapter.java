@@ -1,6 +1,6 @@
 package chess;
 
-import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
@@ -11,21 +11,15 @@ import java.io.IOException;
 public class ChessPieceAdapter extends TypeAdapter<ChessPiece> {
     @Override
     public void write(JsonWriter jsonWriter, ChessPiece chessPiece) throws IOException {
-        Gson gson = new Gson();
-
         if (chessPiece == null) {
             jsonWriter.nullValue();
             return;
         }
 
-        switch(chessPiece.getPieceType()) {
-            case ROOK -> gson.getAdapter(Rook.class).write(jsonWriter, (Rook) chessPiece);
-            case BISHOP -> gson.getAdapter(Bishop.class).write(jsonWriter, (Bishop) chessPiece);
-            case KING -> gson.getAdapter(King.class).write(jsonWriter, (King) chessPiece);
-            case KNIGHT -> gson.getAdapter(Knight.class).write(jsonWriter, (Knight) chessPiece);
-            case PAWN -> gson.getAdapter(Pawn.class).write(jsonWriter, (Pawn) chessPiece);
-            case QUEEN -> gson.getAdapter(Queen.class).write(jsonWriter, (Queen) chessPiece);
-        }
+        jsonWriter.beginObject();
+        jsonWriter.name("teamColor").value(chessPiece.getTeamColor().name());
+        jsonWriter.name("type").value(chessPiece.getPieceType().name());
+        jsonWriter.endObject();
     }
 
     @Override
@@ -45,6 +39,7 @@ public class ChessPieceAdapter extends TypeAdapter<ChessPiece> {
             switch (name) {
                 case "type" -> type = ChessPiece.PieceType.valueOf(jsonReader.nextString());
                 case "teamColor" -> teamColor = ChessGame.TeamColor.valueOf(jsonReader.nextString());
+                default -> jsonReader.skipValue();
             }
         }
 
@@ -52,15 +47,11 @@ public class ChessPieceAdapter extends TypeAdapter<ChessPiece> {
 
         if(type == null) {
             return null;
+        } else if (teamColor == null) {
+            // Pieces are shared per color and type, so there's no piece to return without a color
+            throw new JsonParseException("piece has no teamColor");
         } else {
-            return switch (type) {
-                case ROOK -> new Rook(teamColor);
-                case BISHOP -> new Bishop(teamColor);
-                case KING -> new King(teamColor);
-                case KNIGHT -> new Knight(teamColor);
-                case PAWN -> new Pawn(teamColor);
-                case QUEEN -> new Queen(teamColor);
-            };
+            return ChessPieceImpl.getInstance(teamColor, type);
         }
     }
 }
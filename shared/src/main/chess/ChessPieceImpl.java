@@ -1,8 +1,30 @@
 package chess;
 
+import java.util.ArrayList;
 import java.util.Collection;
 
 public abstract class ChessPieceImpl implements ChessPiece {
+    /**
+     * The most moves any single piece can have (a queen in the middle of an empty board)
+     */
+    public static final int MAX_PIECE_MOVES = 27;
+
+    private static final ChessPiece[] sharedPieces = new ChessPiece[12];
+    static {
+        for (ChessGame.TeamColor teamColor : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                sharedPieces[teamColor.ordinal() * 6 + type.ordinal()] = switch (type) {
+                    case KING -> new King(teamColor);
+                    case QUEEN -> new Queen(teamColor);
+                    case BISHOP -> new Bishop(teamColor);
+                    case KNIGHT -> new Knight(teamColor);
+                    case ROOK -> new Rook(teamColor);
+                    case PAWN -> new Pawn(teamColor);
+                };
+            }
+        }
+    }
+
     private final ChessGame.TeamColor teamColor;
     protected PieceType type;
 
@@ -11,6 +33,17 @@ public abstract class ChessPieceImpl implements ChessPiece {
         teamColor = color;
     }
 
+    /**
+     * Gets a piece without allocating one. Pieces hold no state besides their color and type,
+     * so the returned instance can be shared by any number of boards.
+     * @param teamColor the color of the piece
+     * @param type the type of the piece
+     * @return the shared piece instance
+     */
+    public static ChessPiece getInstance(ChessGame.TeamColor teamColor, PieceType type) {
+        return sharedPieces[teamColor.ordinal() * 6 + type.ordinal()];
+    }
+
     @Override
     public ChessGame.TeamColor getTeamColor() {
         return teamColor;
@@ -20,5 +53,79 @@ public abstract class ChessPieceImpl implements ChessPiece {
     public abstract PieceType getPieceType();
 
     @Override
-    public abstract Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition);
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return teamColor == ((ChessPieceImpl) o).teamColor;
+    }
+
+    @Override
+    public int hashCode() {
+        return teamColor.ordinal() * 6 + getPieceType().ordinal();
+    }
+
+    @Override
+    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
+        int[] encodedMoves = new int[MAX_PIECE_MOVES];
+        var moveCount = pieceMoves(board, ChessPositionImpl.toSquare(myPosition), encodedMoves, 0);
+        ArrayList<ChessMove> moves = new ArrayList<>(moveCount);
+        for (int i = 0; i < moveCount; i++)
+            moves.add(ChessMoveImpl.decode(encodedMoves[i]));
+        return moves;
+    }
+
+    /**
+     * Calculates all the moves this piece can make, without allocating
+     * Does not take into account moves that are illegal due to leaving the king in danger
+     * @param board the board the piece is on
+     * @param square the square index of the piece
+     * @param moves buffer to write encoded moves (see {@link ChessMoveImpl#encode}) into,
+     *              needs room for {@link #MAX_PIECE_MOVES} more moves
+     * @param moveCount number of moves already in the buffer
+     * @return the new number of moves in the buffer
+     */
+    public abstract int pieceMoves(ChessBoard board, int square, int[] moves, int moveCount);
+
+    /**
+     * Adds moves along a direction until the edge of the board or a blocking piece
+     * @return the new number of moves in the buffer
+     */
+    protected int addSlidingMoves(ChessBoard board, int square, int rowDirection, int colDirection,
+                                  int[] moves, int moveCount) {
+        var row = square / 8 + rowDirection;
+        var col = square % 8 + colDirection;
+        while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+            var targetSquare = row * 8 + col;
+            ChessPiece blockingPiece = board.getPiece(targetSquare);
+            if (blockingPiece == null) {
+                moves[moveCount++] = ChessMoveImpl.encode(square, targetSquare, null, 0);
+            } else {
+                if (blockingPiece.getTeamColor() != teamColor) // can capture piece
+                    moves[moveCount++] = ChessMoveImpl.encode(square, targetSquare, null, ChessMoveImpl.FLAG_CAPTURE);
+                break;
+            }
+            row += rowDirection;
+            col += colDirection;
+        }
+        return moveCount;
+    }
+
+    /**
+     * Adds a single move by an offset if it stays on the board and doesn't land on a friendly piece
+     * @return the new number of moves in the buffer
+     */
+    protected int addStepMove(ChessBoard board, int square, int rowOffset, int colOffset,
+                              int[] moves, int moveCount) {
+        var row = square / 8 + rowOffset;
+        var col = square % 8 + colOffset;
+        if (row >= 0 && row < 8 && col >= 0 && col < 8) {
+            var targetSquare = row * 8 + col;
+            ChessPiece blockingPiece = board.getPiece(targetSquare);
+            if (blockingPiece == null)
+                moves[moveCount++] = ChessMoveImpl.encode(square, targetSquare, null, 0);
+            else if (blockingPiece.getTeamColor() != teamColor) // can capture piece
+                moves[moveCount++] = ChessMoveImpl.encode(square, targetSquare, null, ChessMoveImpl.FLAG_CAPTURE);
+        }
+        return moveCount;
+    }
 }
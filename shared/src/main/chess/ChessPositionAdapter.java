@@ -0,0 +1,51 @@
+package chess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads positions as the shared instances from {@link ChessPositionImpl#of(int, int)} instead of
+ * allocating one per move. Writes the same {"type":"ChessPositionImpl","row":..,"column":..} shape the
+ * runtime type adapter did, so stored games and older clients still read it.
+ */
+public class ChessPositionAdapter extends TypeAdapter<ChessPosition> {
+    private static final String TYPE_NAME = ChessPositionImpl.class.getSimpleName();
+
+    @Override
+    public void write(JsonWriter jsonWriter, ChessPosition position) throws IOException {
+        if (position == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+        jsonWriter.beginObject();
+        jsonWriter.name("type").value(TYPE_NAME);
+        jsonWriter.name("row").value(position.getRow());
+        jsonWriter.name("column").value(position.getColumn());
+        jsonWriter.endObject();
+    }
+
+    @Override
+    public ChessPosition read(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+
+        int row = 1;
+        int column = 1;
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            switch (jsonReader.nextName()) {
+                case "row" -> row = jsonReader.nextInt();
+                case "column" -> column = jsonReader.nextInt();
+                default -> jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        return ChessPositionImpl.of(row, column);
+    }
+}
@@ -4,8 +4,15 @@ import java.util.Objects;
 
 public class ChessPositionImpl implements ChessPosition {
 
-    private int row;
-    private int column;
+    // Positions are immutable, so one shared instance per square is all that's ever needed
+    private static final ChessPositionImpl[] positions = new ChessPositionImpl[64];
+    static {
+        for (int square = 0; square < 64; square++)
+            positions[square] = new ChessPositionImpl(square / 8 + 1, square % 8 + 1);
+    }
+
+    private final int row;
+    private final int column;
 
     public ChessPositionImpl(int row, int col) {
         // Clamp both row and column to the range [1,8]
@@ -13,6 +20,41 @@ public class ChessPositionImpl implements ChessPosition {
         this.column = Math.max(1, Math.min(8, col));
     }
 
+    /**
+     * Gets the shared position for a row and column without allocating
+     * @param row the row, clamped to 1-8
+     * @param col the column, clamped to 1-8
+     */
+    public static ChessPositionImpl of(int row, int col) {
+        return positions[toSquare(Math.max(1, Math.min(8, row)), Math.max(1, Math.min(8, col)))];
+    }
+
+    /**
+     * Gets the shared position for a square index
+     * @param square the square index, see {@link #toSquare(int, int)}
+     */
+    public static ChessPositionImpl fromSquare(int square) {
+        return positions[square];
+    }
+
+    /**
+     * Gets the square index (0-63) of a row and column, counting from the bottom left
+     * @param row the row, 1-8
+     * @param col the column, 1-8
+     * @return the square index
+     */
+    public static int toSquare(int row, int col) {
+        return (row - 1) * 8 + col - 1;
+    }
+
+    /**
+     * @param position the position to get the square index of
+     * @return the square index of the position
+     */
+    public static int toSquare(ChessPosition position) {
+        return toSquare(position.getRow(), position.getColumn());
+    }
+
     @Override
     public int getRow() {
         return row;
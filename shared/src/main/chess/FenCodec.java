@@ -0,0 +1,128 @@
+package chess;
+
+/**
+ * Converts games to and from Forsyth-Edwards Notation, e.g. the starting position is
+ * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1". This covers the board, whose turn it is,
+ * castling rights and en passant in well under 100 characters.
+ */
+public final class FenCodec {
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String pieceLetters = "kqbnrp";
+
+    private FenCodec() {}
+
+    /**
+     * @param game the game to encode
+     * @return the FEN for the game's position. Move counters aren't tracked, so they're always "0 1"
+     */
+    public static String encode(ChessGameImpl game) {
+        var board = game.getBoard();
+        var fen = new StringBuilder(90);
+        for (int row = 7; row >= 0; row--) {
+            var emptyCount = 0;
+            for (int col = 0; col < 8; col++) {
+                var piece = board.getPiece(row * 8 + col);
+                if (piece == null) {
+                    emptyCount++;
+                    continue;
+                }
+                if (emptyCount > 0) {
+                    fen.append(emptyCount);
+                    emptyCount = 0;
+                }
+                var letter = pieceLetters.charAt(piece.getPieceType().ordinal());
+                fen.append(piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if (emptyCount > 0)
+                fen.append(emptyCount);
+            if (row > 0)
+                fen.append('/');
+        }
+
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+        var castlingRights = game.getCastlingRights();
+        if (castlingRights == 0)
+            fen.append('-');
+        if ((castlingRights & ChessGameImpl.WHITE_KINGSIDE_CASTLE) != 0) fen.append('K');
+        if ((castlingRights & ChessGameImpl.WHITE_QUEENSIDE_CASTLE) != 0) fen.append('Q');
+        if ((castlingRights & ChessGameImpl.BLACK_KINGSIDE_CASTLE) != 0) fen.append('k');
+        if ((castlingRights & ChessGameImpl.BLACK_QUEENSIDE_CASTLE) != 0) fen.append('q');
+
+        fen.append(' ');
+        var enPassantSquare = game.getEnPassantSquare();
+        if (enPassantSquare < 0)
+            fen.append('-');
+        else
+            fen.append(ChessPositionImpl.fromSquare(enPassantSquare));
+        fen.append(" 0 1");
+        return fen.toString();
+    }
+
+    /**
+     * Decodes a FEN onto a new {@link ChessBoardImpl}
+     * @see #decode(String, ChessBoard)
+     */
+    public static ChessGameImpl decode(String fen) {
+        return decode(fen, new ChessBoardImpl());
+    }
+
+    /**
+     * Sets up a game from the first four fields of a FEN (placement, turn, castling and en passant)
+     * @param fen the position to load
+     * @param board an empty board to put the pieces on
+     * @return the loaded game
+     * @throws IllegalArgumentException if the FEN can't be read
+     */
+    public static ChessGameImpl decode(String fen, ChessBoard board) {
+        var fields = fen.trim().split("\\s+");
+        if (fields.length < 4)
+            throw new IllegalArgumentException("FEN needs at least 4 fields: " + fen);
+
+        var row = 7;
+        var col = 0;
+        for (int i = 0; i < fields[0].length(); i++) {
+            var c = fields[0].charAt(i);
+            if (c == '/') {
+                row--;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                var typeIndex = pieceLetters.indexOf(Character.toLowerCase(c));
+                if (typeIndex < 0 || row < 0 || col > 7)
+                    throw new IllegalArgumentException("Bad piece placement in FEN: " + fen);
+                var teamColor = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                board.setPiece(row * 8 + col, ChessPieceImpl.getInstance(teamColor, ChessPiece.PieceType.values()[typeIndex]));
+                col++;
+            }
+        }
+
+        var game = new ChessGameImpl();
+        game.setBoard(board);
+        game.setTeamTurn(switch (fields[1]) {
+            case "w" -> ChessGame.TeamColor.WHITE;
+            case "b" -> ChessGame.TeamColor.BLACK;
+            default -> throw new IllegalArgumentException("Bad turn in FEN: " + fen);
+        });
+        var castlingRights = 0;
+        for (int i = 0; i < fields[2].length(); i++) {
+            castlingRights |= switch (fields[2].charAt(i)) {
+                case 'K' -> ChessGameImpl.WHITE_KINGSIDE_CASTLE;
+                case 'Q' -> ChessGameImpl.WHITE_QUEENSIDE_CASTLE;
+                case 'k' -> ChessGameImpl.BLACK_KINGSIDE_CASTLE;
+                case 'q' -> ChessGameImpl.BLACK_QUEENSIDE_CASTLE;
+                default -> 0;
+            };
+        }
+        game.setCastlingRights(castlingRights);
+        if (!fields[3].equals("-")) {
+            var enPassant = fields[3];
+            if (enPassant.length() != 2 || enPassant.charAt(0) < 'a' || enPassant.charAt(0) > 'h'
+                    || enPassant.charAt(1) < '1' || enPassant.charAt(1) > '8')
+                throw new IllegalArgumentException("Bad en passant square in FEN: " + fen);
+            game.setEnPassantSquare(ChessPositionImpl.toSquare(enPassant.charAt(1) - '0', enPassant.charAt(0) - 'a' + 1));
+        }
+        return game;
+    }
+}
@@ -1,8 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.Collection;
-
 public class King extends ChessPieceImpl{
     public King(ChessGame.TeamColor color) {
         super(color);
@@ -14,29 +11,15 @@ public class King extends ChessPieceImpl{
     }
 
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        ArrayList<ChessMove> moves = new ArrayList<>();
-
+    public int pieceMoves(ChessBoard board, int square, int[] moves, int moveCount) {
         // Go through all directions
         for (int rowDirection = -1; rowDirection <= 1; rowDirection++) {
             for (int colDirection = -1; colDirection <= 1; colDirection++) {
-                if (rowDirection == 0 && colDirection == 0)
-                    continue;
-                var row = myPosition.getRow() + rowDirection;
-                var col = myPosition.getColumn() + colDirection;
-                if (row > 0 && row < 9 && col > 0 && col < 9) {
-                    ChessPosition targetPosition = new ChessPositionImpl(row, col);
-                    ChessPiece blockingPiece = board.getPiece(targetPosition);
-                    if (blockingPiece == null) {
-                        moves.add(new ChessMoveImpl(myPosition, targetPosition, null));
-                        continue;
-                    } else if (blockingPiece.getTeamColor() != getTeamColor()) // can capture piece
-                        moves.add(new ChessMoveImpl(myPosition, targetPosition, null));
-                    break;
-                }
+                if (rowDirection != 0 || colDirection != 0)
+                    moveCount = addStepMove(board, square, rowDirection, colDirection, moves, moveCount);
             }
         }
 
-        return moves;
+        return moveCount;
     }
 }
@@ -1,8 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.Collection;
-
 public class Knight extends ChessPieceImpl{
     public Knight(ChessGame.TeamColor color) {
         super(color);
@@ -14,25 +11,15 @@ public class Knight extends ChessPieceImpl{
     }
 
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        ArrayList<ChessMove> moves = new ArrayList<>();
-
+    public int pieceMoves(ChessBoard board, int square, int[] moves, int moveCount) {
         for (int rowDirection = -2; rowDirection <= 2; rowDirection++) {
             for (int colDirection = -2; colDirection <= 2; colDirection++) {
                 // An L doesn't have equal sides! (also skip 0s)
-                if (Math.abs(rowDirection) != Math.abs(colDirection) && rowDirection != 0 && colDirection != 0) {
-                    var row = myPosition.getRow() + rowDirection;
-                    var col = myPosition.getColumn() + colDirection;
-                    if (row > 0 && row < 9 && col > 0 && col < 9) {
-                        ChessPosition targetPosition = new ChessPositionImpl(row, col);
-                        ChessPiece blockingPiece = board.getPiece(targetPosition);
-                        if (blockingPiece == null || blockingPiece.getTeamColor() != getTeamColor())
-                            moves.add(new ChessMoveImpl(myPosition, targetPosition, null));
-                    }
-                }
+                if (Math.abs(rowDirection) != Math.abs(colDirection) && rowDirection != 0 && colDirection != 0)
+                    moveCount = addStepMove(board, square, rowDirection, colDirection, moves, moveCount);
             }
         }
 
-        return moves;
+        return moveCount;
     }
 }
@@ -1,8 +1,5 @@
 package chess;
 
-import java.util.Collection;
-import java.util.ArrayList;
-
 public class Pawn extends ChessPieceImpl{
     private static final ChessPiece.PieceType[] promotionTypes = {
         PieceType.QUEEN,
@@ -21,56 +18,54 @@ public class Pawn extends ChessPieceImpl{
     }
 
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        ArrayList<ChessMove> moves = new ArrayList<>();
+    public int pieceMoves(ChessBoard board, int square, int[] moves, int moveCount) {
         int rowDirection = getTeamColor() == ChessGame.TeamColor.WHITE ? 1:-1;
-
-        ChessPositionImpl singleMovePosition = new ChessPositionImpl(
-                myPosition.getRow() + rowDirection,
-                myPosition.getColumn()
-        );
+        int row = square / 8;
+        int col = square % 8;
+        int targetRow = row + rowDirection;
+        if (targetRow < 0 || targetRow > 7)
+            return moveCount;
+        boolean isPromotion = targetRow == 0 || targetRow == 7;
 
         // Add single space move
-        if (board.getPiece(singleMovePosition) == null) {
-            if (rowDirection == 1 && singleMovePosition.getRow() == 8
-                    || rowDirection == -1 && singleMovePosition.getRow() == 1)
-                addPromotionMoves(moves, myPosition, singleMovePosition);
+        int singleMoveSquare = targetRow * 8 + col;
+        if (board.getPiece(singleMoveSquare) == null) {
+            if (isPromotion)
+                moveCount = addPromotionMoves(moves, moveCount, square, singleMoveSquare, 0);
             else
-                moves.add(new ChessMoveImpl(myPosition, singleMovePosition, null));
+                moves[moveCount++] = ChessMoveImpl.encode(square, singleMoveSquare, null, 0);
 
             // Add double space move
-            if (rowDirection == 1 && myPosition.getRow() == 2 || rowDirection == -1 && myPosition.getRow() == 7) {
-                ChessPositionImpl doubleMovePosition = new ChessPositionImpl(
-                        myPosition.getRow() + rowDirection * 2,
-                        myPosition.getColumn()
-                );
-                if (board.getPiece(doubleMovePosition) == null)
-                    moves.add(new ChessMoveImpl(myPosition, doubleMovePosition, null));
+            if (rowDirection == 1 && row == 1 || rowDirection == -1 && row == 6) {
+                int doubleMoveSquare = singleMoveSquare + rowDirection * 8;
+                if (board.getPiece(doubleMoveSquare) == null)
+                    moves[moveCount++] = ChessMoveImpl.encode(square, doubleMoveSquare, null,
+                            ChessMoveImpl.FLAG_DOUBLE_PAWN_PUSH);
             }
         }
 
         // Check captures
         for (int colDirection = -1; colDirection <= 1; colDirection += 2) {
-            var row = myPosition.getRow() + rowDirection;
-            var col = myPosition.getColumn() + colDirection;
-            if (row > 0 && row < 9 && col > 0 && col < 9) {
-                ChessPosition targetPosition = new ChessPositionImpl(row, col);
-                ChessPiece blockingPiece = board.getPiece(targetPosition);
+            var targetCol = col + colDirection;
+            if (targetCol >= 0 && targetCol < 8) {
+                int targetSquare = targetRow * 8 + targetCol;
+                ChessPiece blockingPiece = board.getPiece(targetSquare);
                 if (blockingPiece != null && blockingPiece.getTeamColor() != getTeamColor()) {
-                    if (rowDirection == 1 && row == 8 || rowDirection == -1 && row == 1)
-                        addPromotionMoves(moves, myPosition, targetPosition);
+                    if (isPromotion)
+                        moveCount = addPromotionMoves(moves, moveCount, square, targetSquare, ChessMoveImpl.FLAG_CAPTURE);
                     else
-                        moves.add(new ChessMoveImpl(myPosition, targetPosition, null));
+                        moves[moveCount++] = ChessMoveImpl.encode(square, targetSquare, null, ChessMoveImpl.FLAG_CAPTURE);
                 }
             }
         }
 
-        return moves;
+        return moveCount;
     }
 
-    private void addPromotionMoves(ArrayList<ChessMove> moves, ChessPosition startPos, ChessPosition endPos) {
+    private int addPromotionMoves(int[] moves, int moveCount, int startSquare, int endSquare, int flags) {
         for (int i = 0; i < 4; i++) {
-            moves.add(new ChessMoveImpl(startPos, endPos, promotionTypes[i]));
+            moves[moveCount++] = ChessMoveImpl.encode(startSquare, endSquare, promotionTypes[i], flags);
         }
+        return moveCount;
     }
 }
@@ -0,0 +1,125 @@
+package chess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of legal moves and check status keyed by {@link ChessGame#getPositionHash()}, shared by
+ * every game so common openings are only analyzed once. Split into independently locked stripes, each
+ * evicting its least recently used position when full, so concurrent games rarely wait on each other.
+ */
+public class PositionCache {
+    private static final int STRIPE_COUNT = 16;
+
+    /**
+     * What is known about a position for the team whose turn it is
+     * @param legalMoves every legal move, encoded (see {@link ChessMoveImpl#encode})
+     * @param inCheck whether the team to move is in check
+     */
+    public record Entry(int[] legalMoves, boolean inCheck) {
+        public boolean isCheckmate() {
+            return inCheck && legalMoves.length == 0;
+        }
+
+        public boolean isStalemate() {
+            return !inCheck && legalMoves.length == 0;
+        }
+    }
+
+    // One stripe's positions, least recently used first; guarded by the stripe
+    private class Stripe {
+        private final LinkedHashMap<Long, Entry> positions;
+
+        Stripe(int maxSize) {
+            positions = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                    if (size() > maxSize) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize the most positions to keep, spread evenly across the stripes
+     */
+    public PositionCache(int maxSize) {
+        var stripeSize = Math.max(1, maxSize / STRIPE_COUNT);
+        for (int i = 0; i < STRIPE_COUNT; i++)
+            stripes[i] = new Stripe(stripeSize);
+    }
+
+    // Zobrist hashes are uniformly random, so the low bits spread positions evenly
+    private Stripe stripeFor(long positionHash) {
+        return stripes[(int) positionHash & (STRIPE_COUNT - 1)];
+    }
+
+    /**
+     * @return the cached entry for the position, or null if it isn't cached
+     */
+    public Entry get(long positionHash) {
+        var stripe = stripeFor(positionHash);
+        Entry entry;
+        synchronized (stripe) {
+            entry = stripe.positions.get(positionHash);
+        }
+        if (entry == null)
+            misses.increment();
+        else
+            hits.increment();
+        return entry;
+    }
+
+    public void put(long positionHash, Entry entry) {
+        var stripe = stripeFor(positionHash);
+        synchronized (stripe) {
+            stripe.positions.put(positionHash, entry);
+        }
+    }
+
+    public void clear() {
+        for (var stripe : stripes) {
+            synchronized (stripe) {
+                stripe.positions.clear();
+            }
+        }
+    }
+
+    public int size() {
+        var size = 0;
+        for (var stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.positions.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PositionCache[size=%d, hits=%d, misses=%d, evictions=%d]",
+                size(), getHitCount(), getMissCount(), getEvictionCount());
+    }
+}
@@ -1,8 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.Collection;
-
 public class Rook extends ChessPieceImpl{
     public Rook(ChessGame.TeamColor color) {
         super(color);
@@ -14,31 +11,13 @@ public class Rook extends ChessPieceImpl{
     }
 
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        ArrayList<ChessMove> moves = new ArrayList<>();
-
+    public int pieceMoves(ChessBoard board, int square, int[] moves, int moveCount) {
         // Go through each of the straight directions
-        for (int axis = 0; axis < 2; axis++) {
-            for (int direction = -1; direction <= 1; direction += 2) {
-                var rowDirection = axis == 0 ? direction:0;
-                var colDirection = axis == 1 ? direction:0;
-                for (int distance = 1; distance <= 7; distance++) {
-                    var row = myPosition.getRow() + rowDirection * distance;
-                    var col = myPosition.getColumn() + colDirection * distance;
-                    if (row > 0 && row < 9 && col > 0 && col < 9) {
-                        ChessPosition targetPosition = new ChessPositionImpl(row, col);
-                        ChessPiece blockingPiece = board.getPiece(targetPosition);
-                        if (blockingPiece == null) {
-                            moves.add(new ChessMoveImpl(myPosition, targetPosition, null));
-                            continue;
-                        } else if (blockingPiece.getTeamColor() != getTeamColor()) // can capture piece
-                            moves.add(new ChessMoveImpl(myPosition, targetPosition, null));
-                        break;
-                    }
-                }
-            }
+        for (int direction = -1; direction <= 1; direction += 2) {
+            moveCount = addSlidingMoves(board, square, direction, 0, moves, moveCount);
+            moveCount = addSlidingMoves(board, square, 0, direction, moves, moveCount);
         }
 
-        return moves;
+        return moveCount;
     }
 }
@@ -0,0 +1,75 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for hashing positions. A position's hash is the XOR of the keys for each piece on
+ * its square, plus keys for black to move, the remaining castling rights and the en passant file, so
+ * making a move only needs a few XORs to update it. The seed is fixed so hashes are stable across runs
+ * and can be stored.
+ */
+public final class Zobrist {
+    private static final long[][] pieceKeys = new long[12][64];
+    private static final long[] castlingKeys = new long[16];
+    private static final long[] enPassantKeys = new long[8];
+    private static final long blackToMoveKey;
+    static {
+        var random = new SplittableRandom(0x2F6A_9C41_D3B8_7E05L);
+        for (long[] squareKeys : pieceKeys) {
+            for (int square = 0; square < 64; square++)
+                squareKeys[square] = random.nextLong();
+        }
+        // Combine the four castling rights so the key for any set of rights is a single lookup
+        long[] rightKeys = {random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong()};
+        for (int rights = 0; rights < 16; rights++) {
+            for (int bit = 0; bit < 4; bit++) {
+                if ((rights & (1 << bit)) != 0)
+                    castlingKeys[rights] ^= rightKeys[bit];
+            }
+        }
+        for (int file = 0; file < 8; file++)
+            enPassantKeys[file] = random.nextLong();
+        blackToMoveKey = random.nextLong();
+    }
+
+    private Zobrist() {}
+
+    /**
+     * @return the key for a piece standing on a square, or 0 for no piece
+     */
+    public static long pieceKey(ChessPiece piece, int square) {
+        if (piece == null)
+            return 0L;
+        return pieceKeys[piece.getTeamColor().ordinal() * 6 + piece.getPieceType().ordinal()][square];
+    }
+
+    /**
+     * @param castlingRights a combination of the ChessGameImpl _CASTLE constants
+     */
+    public static long castlingKey(int castlingRights) {
+        return castlingKeys[castlingRights];
+    }
+
+    /**
+     * @param file the column of the en passant square, 0-7
+     */
+    public static long enPassantKey(int file) {
+        return enPassantKeys[file];
+    }
+
+    public static long sideToMoveKey(ChessGame.TeamColor teamColor) {
+        return teamColor == ChessGame.TeamColor.BLACK ? blackToMoveKey : 0L;
+    }
+
+    /**
+     * Hashes the pieces on a board from scratch
+     * @param board the board to hash
+     * @return the XOR of the keys of every piece on the board
+     */
+    public static long hashPieces(ChessBoard board) {
+        long key = 0L;
+        for (int square = 0; square < 64; square++)
+            key ^= pieceKey(board.getPiece(square), square);
+        return key;
+    }
+}
@@ -0,0 +1,17 @@
+package model;
+
+/**
+ * The parts of a chess game shown in the game list, without the board
+ * @param gameID The ID of the game
+ * @param whiteUsername Username of the white player
+ * @param blackUsername Username of the black player
+ * @param gameName Name of the game
+ * @param gameOver Whether the game has ended
+ */
+public record GameSummary(Integer gameID, String whiteUsername, String blackUsername,
+                          String gameName, boolean gameOver) {
+    public static GameSummary of(Game game) {
+        return new GameSummary(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(),
+                game.gameOver());
+    }
+}
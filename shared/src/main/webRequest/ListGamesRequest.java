@@ -0,0 +1,37 @@
+package webRequest;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Contains request data for listing games, sent as query parameters. Every field is optional.
+ * @param cursor Only list games after this point, taken from the nextCursor of the previous page
+ * @param limit The most games to return in one page
+ * @param openSeat When true, only list games with an empty seat
+ * @param player Only list games this user is playing in
+ * @param gameOver Only list games that have ended, or that haven't
+ * @param namePrefix Only list games whose name starts with this
+ */
+public record ListGamesRequest(Integer cursor, Integer limit, Boolean openSeat, String player, Boolean gameOver,
+                               String namePrefix) {
+    /**
+     * @return the query string for the set fields, starting with "?", or an empty string if none are set
+     */
+    public String toQueryString() {
+        var query = new StringBuilder();
+        appendParameter(query, "cursor", cursor);
+        appendParameter(query, "limit", limit);
+        appendParameter(query, "openSeat", openSeat);
+        appendParameter(query, "player", player);
+        appendParameter(query, "gameOver", gameOver);
+        appendParameter(query, "namePrefix", namePrefix);
+        return query.toString();
+    }
+
+    private static void appendParameter(StringBuilder query, String name, Object value) {
+        if (value == null)
+            return;
+        query.append(query.isEmpty() ? '?' : '&').append(name).append('=')
+                .append(URLEncoder.encode(value.toString(), StandardCharsets.UTF_8));
+    }
+}
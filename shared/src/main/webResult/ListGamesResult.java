@@ -1,10 +1,11 @@
 package webResult;
 
-import model.Game;
+import model.GameSummary;
 
 /**
  * Contains the result data for a list games request
- * @param games The list of games
+ * @param games The list of games, without their boards
  * @param message A potential error message
+ * @param nextCursor The cursor to request the next page with, or null if this is the last page
  */
-public record ListGamesResult(Game[] games, String message, Boolean success) {}
+public record ListGamesResult(GameSummary[] games, String message, Boolean success, Integer nextCursor) {}
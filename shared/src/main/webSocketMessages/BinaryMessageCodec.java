@@ -0,0 +1,312 @@
+package webSocketMessages;
+
+import chess.ChessGame;
+import chess.ChessGameImpl;
+import chess.ChessMoveImpl;
+import chess.FenCodec;
+import webSocketMessages.serverMessages.ServerMessage;
+import webSocketMessages.userCommands.UserGameCommand;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A compact binary form of {@link UserGameCommand} and {@link ServerMessage}, for clients that would rather not
+ * pay for JSON on every message.
+ * <p>
+ * Every frame starts with a fixed header: one byte for the type's ordinal, one byte of flags saying which
+ * optional fields follow, and for server messages one more byte for the check state. Then come the fields that
+ * are present, in a fixed order. Numbers are unsigned varints, strings are a varint byte length and UTF-8,
+ * moves are the two low bytes of {@link ChessMoveImpl#encode(chess.ChessMove)}, game versions are the 8 byte
+ * position hash, and games are FEN.
+ * <p>
+ * Auth tokens are interned per connection: the first command to use a token sends it in full, and later ones
+ * send only its handle, the order it was first sent in starting at 1. Each end of a connection keeps its own
+ * codec instance for commands, so the handles line up without being sent back. Server messages don't depend on
+ * the connection, so those methods are static. A connection can intern at most {@link #MAX_AUTH_TOKENS} tokens.
+ */
+public class BinaryMessageCodec {
+    // Command flags
+    private static final int COMMAND_NEW_AUTH = 1;
+    private static final int COMMAND_MOVE = 1 << 1;
+    private static final int COMMAND_COLOR = 1 << 2;
+    private static final int COMMAND_BLACK = 1 << 3;
+    private static final int COMMAND_GAME_VERSION = 1 << 4;
+    private static final int COMMAND_BATCH_MESSAGES = 1 << 5;
+    private static final int COMMAND_MOVE_DELTAS = 1 << 6;
+
+    // Server message flags
+    private static final int MESSAGE_GAME = 1;
+    private static final int MESSAGE_TEXT = 1 << 1;
+    private static final int MESSAGE_ERROR = 1 << 2;
+    private static final int MESSAGE_GAME_VERSION = 1 << 3;
+    private static final int MESSAGE_MOVE = 1 << 4;
+    private static final int MESSAGE_TEAM_TURN = 1 << 5;
+    private static final int MESSAGE_BLACK = 1 << 6;
+
+    // A connection normally uses one token, but a client that logs in again gets another; this only stops a
+    // peer from growing the table without bound
+    public static final int MAX_AUTH_TOKENS = 64;
+
+    private static final UserGameCommand.CommandType[] commandTypes = UserGameCommand.CommandType.values();
+    private static final ServerMessage.ServerMessageType[] messageTypes = ServerMessage.ServerMessageType.values();
+    private static final ServerMessage.CheckState[] checkStates = ServerMessage.CheckState.values();
+
+    // Only one side of a connection uses each of these
+    private final HashMap<String, Integer> sentAuthHandles = new HashMap<>();
+    private final ArrayList<String> receivedAuthTokens = new ArrayList<>();
+
+    /**
+     * Encodes a command to send on this codec's connection
+     * @param command the command to encode
+     * @return the frame
+     */
+    public byte[] encodeCommand(UserGameCommand command) {
+        var authToken = command.getAuthString();
+        var authHandle = authToken == null ? Integer.valueOf(0) : sentAuthHandles.get(authToken);
+        var flags = 0;
+        if (authHandle == null)
+            flags |= COMMAND_NEW_AUTH;
+        if (command.getChessMove() != null)
+            flags |= COMMAND_MOVE;
+        if (command.getPlayerColor() != null)
+            flags |= COMMAND_COLOR | (command.getPlayerColor() == ChessGame.TeamColor.BLACK ? COMMAND_BLACK : 0);
+        if (command.getGameVersion() != null)
+            flags |= COMMAND_GAME_VERSION;
+        if (command.getBatchMessages())
+            flags |= COMMAND_BATCH_MESSAGES;
+        if (command.getMoveDeltas())
+            flags |= COMMAND_MOVE_DELTAS;
+
+        var out = new ByteArrayOutputStream(16);
+        out.write(command.getCommandType().ordinal());
+        out.write(flags);
+        writeNullableID(out, command.getGameID());
+        if (authHandle == null) {
+            writeString(out, authToken);
+            sentAuthHandles.put(authToken, sentAuthHandles.size() + 1);
+        } else
+            writeVarint(out, authHandle);
+        if (command.getChessMove() != null)
+            writeMove(out, ChessMoveImpl.encode(command.getChessMove()));
+        if (command.getGameVersion() != null)
+            writeGameVersion(out, command.getGameVersion());
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a command received on this codec's connection
+     * @param frame the frame, read from its position
+     * @return the command
+     * @throws IllegalArgumentException if the frame can't be read
+     */
+    public UserGameCommand decodeCommand(ByteBuffer frame) {
+        try {
+            var commandType = commandTypes[frame.get() & 0xFF];
+            var flags = frame.get() & 0xFF;
+            var gameID = readNullableID(frame);
+            String authToken;
+            if ((flags & COMMAND_NEW_AUTH) != 0) {
+                authToken = readString(frame);
+                if (receivedAuthTokens.size() >= MAX_AUTH_TOKENS)
+                    throw new IllegalArgumentException("Too many auth tokens");
+                receivedAuthTokens.add(authToken);
+            } else {
+                var authHandle = readVarint(frame);
+                authToken = authHandle == 0 ? null : receivedAuthTokens.get(authHandle - 1);
+            }
+
+            var command = new UserGameCommand(authToken);
+            command.setCommandType(commandType);
+            command.setGameID(gameID);
+            if ((flags & COMMAND_MOVE) != 0)
+                command.setChessMove(ChessMoveImpl.decode(readMove(frame)));
+            if ((flags & COMMAND_COLOR) != 0)
+                command.setPlayerColor((flags & COMMAND_BLACK) != 0 ? ChessGame.TeamColor.BLACK
+                        : ChessGame.TeamColor.WHITE);
+            if ((flags & COMMAND_GAME_VERSION) != 0)
+                command.setGameVersion(readGameVersion(frame));
+            if ((flags & COMMAND_BATCH_MESSAGES) != 0)
+                command.setBatchMessages(true);
+            if ((flags & COMMAND_MOVE_DELTAS) != 0)
+                command.setMoveDeltas(true);
+            return command;
+        } catch (RuntimeException exception) {
+            throw new IllegalArgumentException("Error: bad command frame", exception);
+        }
+    }
+
+    /**
+     * @param message the message to encode; a BATCH's messages are encoded along with it
+     * @return the frame
+     */
+    public static byte[] encodeMessage(ServerMessage message) {
+        var out = new ByteArrayOutputStream(32);
+        writeMessage(out, message);
+        return out.toByteArray();
+    }
+
+    /**
+     * Builds a BATCH frame from messages that are already encoded, without decoding them again
+     * @param messages the encoded messages, in order
+     * @return the frame
+     */
+    public static byte[] encodeBatch(List<byte[]> messages) {
+        var out = new ByteArrayOutputStream(messages.size() * 32 + 8);
+        out.write(ServerMessage.ServerMessageType.BATCH.ordinal());
+        out.write(0);
+        out.write(0);
+        writeVarint(out, messages.size());
+        for (var message : messages)
+            out.writeBytes(message);
+        return out.toByteArray();
+    }
+
+    /**
+     * @param frame the frame, read from its position
+     * @return the message
+     * @throws IllegalArgumentException if the frame can't be read
+     */
+    public static ServerMessage decodeMessage(ByteBuffer frame) {
+        try {
+            return readMessage(frame);
+        } catch (RuntimeException exception) {
+            throw new IllegalArgumentException("Error: bad message frame", exception);
+        }
+    }
+
+    private static void writeMessage(ByteArrayOutputStream out, ServerMessage message) {
+        var flags = 0;
+        if (message.getGame() != null)
+            flags |= MESSAGE_GAME;
+        if (message.getMessage() != null)
+            flags |= MESSAGE_TEXT;
+        if (message.getErrorMessage() != null)
+            flags |= MESSAGE_ERROR;
+        if (message.getGameVersion() != null)
+            flags |= MESSAGE_GAME_VERSION;
+        if (message.getMove() != null)
+            flags |= MESSAGE_MOVE;
+        if (message.getTeamTurn() != null)
+            flags |= MESSAGE_TEAM_TURN | (message.getTeamTurn() == ChessGame.TeamColor.BLACK ? MESSAGE_BLACK : 0);
+
+        out.write(message.getServerMessageType().ordinal());
+        out.write(flags);
+        out.write(message.getCheckState() == null ? 0 : message.getCheckState().ordinal() + 1);
+        if (message.getGameVersion() != null)
+            writeGameVersion(out, message.getGameVersion());
+        if (message.getMove() != null)
+            writeMove(out, message.getMove());
+        if (message.getMessage() != null)
+            writeString(out, message.getMessage());
+        if (message.getErrorMessage() != null)
+            writeString(out, message.getErrorMessage());
+        if (message.getGame() != null)
+            writeString(out, FenCodec.encode((ChessGameImpl) message.getGame()));
+        if (message.getServerMessageType() == ServerMessage.ServerMessageType.BATCH) {
+            var messages = message.getMessages();
+            writeVarint(out, messages.size());
+            for (var batchedMessage : messages)
+                writeMessage(out, batchedMessage);
+        }
+    }
+
+    private static ServerMessage readMessage(ByteBuffer frame) {
+        var message = new ServerMessage(messageTypes[frame.get() & 0xFF]);
+        var flags = frame.get() & 0xFF;
+        var checkState = frame.get() & 0xFF;
+        if (checkState != 0)
+            message.setCheckState(checkStates[checkState - 1]);
+        if ((flags & MESSAGE_TEAM_TURN) != 0)
+            message.setTeamTurn((flags & MESSAGE_BLACK) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        if ((flags & MESSAGE_GAME_VERSION) != 0)
+            message.setGameVersion(readGameVersion(frame));
+        if ((flags & MESSAGE_MOVE) != 0)
+            message.setMove(readMove(frame));
+        if ((flags & MESSAGE_TEXT) != 0)
+            message.setMessage(readString(frame));
+        if ((flags & MESSAGE_ERROR) != 0)
+            message.setErrorMessage(readString(frame));
+        if ((flags & MESSAGE_GAME) != 0)
+            message.setGame(FenCodec.decode(readString(frame)));
+        if (message.getServerMessageType() == ServerMessage.ServerMessageType.BATCH) {
+            var count = readVarint(frame);
+            var messages = new ArrayList<ServerMessage>(Math.min(count, 16));
+            for (int i = 0; i < count; i++)
+                messages.add(readMessage(frame));
+            message.setMessages(messages);
+        }
+        return message;
+    }
+
+    // IDs are stored one higher so that 0 can mean null
+    private static void writeNullableID(ByteArrayOutputStream out, Integer id) {
+        writeVarint(out, id == null ? 0 : id + 1);
+    }
+
+    private static Integer readNullableID(ByteBuffer frame) {
+        var id = readVarint(frame);
+        return id == 0 ? null : id - 1;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer frame) {
+        var value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            var b = frame.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuffer frame) {
+        // The length comes from the peer, so it's checked against the frame before anything is allocated for it
+        var length = readVarint(frame);
+        if (length < 0 || length > frame.remaining())
+            throw new IllegalArgumentException("String longer than the frame");
+        var bytes = new byte[length];
+        frame.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Moves without flags fit in 15 bits
+    private static void writeMove(ByteArrayOutputStream out, int move) {
+        move = ChessMoveImpl.withoutFlags(move);
+        out.write(move >>> 8);
+        out.write(move);
+    }
+
+    private static int readMove(ByteBuffer frame) {
+        return frame.getShort() & 0x7FFF;
+    }
+
+    // Versions are position hashes in hex, so they pack into a long
+    private static void writeGameVersion(ByteArrayOutputStream out, String gameVersion) {
+        var hash = Long.parseUnsignedLong(gameVersion, 16);
+        for (int shift = 56; shift >= 0; shift -= 8)
+            out.write((int) (hash >>> shift));
+    }
+
+    private static String readGameVersion(ByteBuffer frame) {
+        return Long.toHexString(frame.getLong());
+    }
+}
@@ -19,6 +19,20 @@ public interface ChessBoard {
      */
     ChessPiece getPiece(ChessPosition position);
 
+    /**
+     * Gets a chess piece on the chessboard without needing a position object
+     * @param square The square index of the position, see {@link ChessPositionImpl#toSquare(int, int)}
+     * @return Either the piece at the square, or null if no piece is at that square
+     */
+    ChessPiece getPiece(int square);
+
+    /**
+     * Puts a piece on a square, replacing whatever was there
+     * @param square The square index of the position
+     * @param piece The piece to put, or null to empty the square
+     */
+    void setPiece(int square, ChessPiece piece);
+
     /**
      * Gets the position of a king
      * @param teamColor The color of the king
@@ -26,6 +40,27 @@ public interface ChessBoard {
      */
     ChessPosition findKing(ChessGame.TeamColor teamColor);
 
+    /**
+     * Gets the square of a king without needing a position object
+     * @param teamColor The color of the king
+     * @return Either the square index of the king, or -1 if there is no king of that team
+     */
+    int findKingSquare(ChessGame.TeamColor teamColor);
+
+    /**
+     * Determines if a team could capture a piece on a square
+     * @param square The square index to check
+     * @param attackingTeam The team that might be attacking the square
+     * @return True if a piece of the attacking team attacks the square
+     */
+    boolean isSquareAttacked(int square, ChessGame.TeamColor attackingTeam);
+
+    /**
+     * Gets a hash of where the pieces are, kept up to date as pieces are added and moved
+     * @return The XOR of the {@link Zobrist} keys of every piece on the board
+     */
+    long getZobristKey();
+
     /**
      * Moves a chess piece on the chessboard
      * @param move The move to make
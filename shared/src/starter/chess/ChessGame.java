@@ -64,6 +64,13 @@ public interface ChessGame {
      */
     boolean isInStalemate(TeamColor teamColor);
 
+    /**
+     * Gets a 64-bit hash of the position, covering the pieces, whose turn it is, castling rights and
+     * en passant. Equal positions always have equal hashes.
+     * @return the Zobrist hash of the position
+     */
+    long getPositionHash();
+
     /**
      * Sets this game's chessboard with a given board
      * @param board the new board to use
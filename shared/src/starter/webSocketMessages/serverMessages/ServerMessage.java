@@ -2,6 +2,7 @@ package webSocketMessages.serverMessages;
 
 import chess.ChessGame;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -15,11 +16,30 @@ public class ServerMessage {
     ChessGame game;
     String message;
     String errorMessage;
+    // Identifies the state of the game sent with LOAD_GAME; a LOAD_GAME without a game means the client's copy
+    // with this version is still current
+    String gameVersion;
+    // The messages a BATCH carries, in the order they were sent
+    List<ServerMessage> messages;
+    // A MOVE_APPLIED carries just the move, encoded as in ChessMoveImpl.encode, and what it led to; gameVersion
+    // is then the version of the game after the move
+    Integer move;
+    ChessGame.TeamColor teamTurn;
+    CheckState checkState;
 
     public enum ServerMessageType {
         LOAD_GAME,
         ERROR,
-        NOTIFICATION
+        NOTIFICATION,
+        BATCH,
+        MOVE_APPLIED
+    }
+
+    public enum CheckState {
+        NONE,
+        CHECK,
+        CHECKMATE,
+        STALEMATE
     }
 
     public ServerMessage(ServerMessageType type) {
@@ -32,11 +52,21 @@ public class ServerMessage {
     public String getMessage() { return this.message; }
     public String getErrorMessage() { return this.errorMessage; }
     public ChessGame getGame() { return this.game; }
+    public String getGameVersion() { return this.gameVersion; }
+    public List<ServerMessage> getMessages() { return this.messages; }
+    public Integer getMove() { return this.move; }
+    public ChessGame.TeamColor getTeamTurn() { return this.teamTurn; }
+    public CheckState getCheckState() { return this.checkState; }
 
     public void setServerMessageType(ServerMessageType messageType) { this.serverMessageType = messageType; }
     public void setMessage(String message) { this.message = message; }
     public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
     public void setGame(ChessGame game) { this.game = game; }
+    public void setGameVersion(String gameVersion) { this.gameVersion = gameVersion; }
+    public void setMessages(List<ServerMessage> messages) { this.messages = messages; }
+    public void setMove(Integer move) { this.move = move; }
+    public void setTeamTurn(ChessGame.TeamColor teamTurn) { this.teamTurn = teamTurn; }
+    public void setCheckState(CheckState checkState) { this.checkState = checkState; }
 
     @Override
     public boolean equals(Object o) {
@@ -22,7 +22,8 @@ public class UserGameCommand {
         JOIN_OBSERVER,
         MAKE_MOVE,
         LEAVE,
-        RESIGN
+        RESIGN,
+        REQUEST_GAME
     }
 
     protected CommandType commandType;
@@ -32,6 +33,12 @@ public class UserGameCommand {
     private Integer gameID;
 
     private ChessGame.TeamColor playerColor;
+    // The version of the game the client already has when rejoining, so the server can skip sending it again
+    private String gameVersion;
+    // Set when joining to get each command's messages as one BATCH frame
+    private Boolean batchMessages;
+    // Set when joining to get MOVE_APPLIED instead of a full LOAD_GAME after each move
+    private Boolean moveDeltas;
 
     public String getAuthString() {
         return authToken;
@@ -44,6 +51,9 @@ public class UserGameCommand {
     public ChessMove getChessMove() { return this.chessMove; }
     public Integer getGameID() { return this.gameID; }
     public ChessGame.TeamColor getPlayerColor() { return this.playerColor; }
+    public String getGameVersion() { return this.gameVersion; }
+    public boolean getBatchMessages() { return Boolean.TRUE.equals(this.batchMessages); }
+    public boolean getMoveDeltas() { return Boolean.TRUE.equals(this.moveDeltas); }
 
     public void setCommandType(CommandType commandType) {
         this.commandType = commandType;
@@ -52,6 +62,9 @@ public class UserGameCommand {
     public void setChessMove(ChessMove chessMove) { this.chessMove = chessMove; }
     public void setGameID(Integer gameID) { this.gameID = gameID; }
     public void setPlayerColor(ChessGame.TeamColor playerColor) { this.playerColor = playerColor; }
+    public void setGameVersion(String gameVersion) { this.gameVersion = gameVersion; }
+    public void setBatchMessages(boolean batchMessages) { this.batchMessages = batchMessages; }
+    public void setMoveDeltas(boolean moveDeltas) { this.moveDeltas = moveDeltas; }
 
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,65 @@
+package unitTests.chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class AttacksTests {
+
+    @Test
+    public void knightAndPawnPatterns() {
+        var board = new ChessBoardImpl();
+        board.addPiece(new ChessPositionImpl(1, 2), new Knight(ChessGame.TeamColor.BLACK));
+        board.addPiece(new ChessPositionImpl(5, 5), new Pawn(ChessGame.TeamColor.WHITE));
+
+        Assertions.assertTrue(board.isSquareAttacked(ChessPositionImpl.toSquare(3, 3), ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(board.isSquareAttacked(ChessPositionImpl.toSquare(3, 3), ChessGame.TeamColor.WHITE));
+        Assertions.assertTrue(board.isSquareAttacked(ChessPositionImpl.toSquare(6, 4), ChessGame.TeamColor.WHITE));
+        // Pawns don't attack the square in front of them
+        Assertions.assertFalse(board.isSquareAttacked(ChessPositionImpl.toSquare(6, 5), ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    public void slidersStopAtBlockers() {
+        var board = new ChessBoardImpl();
+        board.addPiece(new ChessPositionImpl(1, 1), new Queen(ChessGame.TeamColor.WHITE));
+        board.addPiece(new ChessPositionImpl(4, 4), new Pawn(ChessGame.TeamColor.BLACK));
+
+        Assertions.assertTrue(board.isSquareAttacked(ChessPositionImpl.toSquare(4, 4), ChessGame.TeamColor.WHITE));
+        Assertions.assertFalse(board.isSquareAttacked(ChessPositionImpl.toSquare(5, 5), ChessGame.TeamColor.WHITE));
+        Assertions.assertTrue(board.isSquareAttacked(ChessPositionImpl.toSquare(8, 1), ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    public void boardsAgreeOnRandomPositions() {
+        var random = new Random(240);
+        var types = ChessPiece.PieceType.values();
+        var colors = ChessGame.TeamColor.values();
+        for (int trial = 0; trial < 200; trial++) {
+            var arrayBoard = new ChessBoardImpl();
+            var bitboard = new BitboardChessBoard();
+            for (int i = 0; i < 12; i++) {
+                var position = new ChessPositionImpl(random.nextInt(8) + 1, random.nextInt(8) + 1);
+                var color = colors[random.nextInt(2)];
+                ChessPiece piece = switch (types[random.nextInt(types.length)]) {
+                    case KING -> new King(color);
+                    case QUEEN -> new Queen(color);
+                    case BISHOP -> new Bishop(color);
+                    case KNIGHT -> new Knight(color);
+                    case ROOK -> new Rook(color);
+                    case PAWN -> new Pawn(color);
+                };
+                arrayBoard.addPiece(position, piece);
+                bitboard.addPiece(position, piece);
+            }
+            for (int square = 0; square < 64; square++) {
+                for (var color : colors) {
+                    Assertions.assertEquals(arrayBoard.isSquareAttacked(square, color),
+                            bitboard.isSquareAttacked(square, color), "Boards disagree on square " + square);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package unitTests.chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BitboardChessBoardTests {
+
+    @Test
+    public void resetMatchesArrayBoard() {
+        var bitboard = new BitboardChessBoard();
+        var arrayBoard = new ChessBoardImpl();
+        bitboard.resetBoard();
+        arrayBoard.resetBoard();
+        Assertions.assertEquals(arrayBoard.boardToString(true), bitboard.boardToString(true));
+        Assertions.assertEquals(0x000000000000FF00L,
+                bitboard.getPieceBoard(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        Assertions.assertEquals(0xFFFF00000000FFFFL, bitboard.getOccupancy());
+    }
+
+    @Test
+    public void movePieceCapturesAndPromotes() {
+        var board = new BitboardChessBoard();
+        var start = new ChessPositionImpl(7, 2);
+        var end = new ChessPositionImpl(8, 1);
+        board.addPiece(start, new Pawn(ChessGame.TeamColor.WHITE));
+        board.addPiece(end, new Rook(ChessGame.TeamColor.BLACK));
+
+        board.movePiece(new ChessMoveImpl(start, end, ChessPiece.PieceType.QUEEN));
+
+        Assertions.assertNull(board.getPiece(start));
+        Assertions.assertEquals(ChessPiece.PieceType.QUEEN, board.getPiece(end).getPieceType());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, board.getPiece(end).getTeamColor());
+        Assertions.assertEquals(0L, board.getTeamOccupancy(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    public void selectablePerGame() throws InvalidMoveException {
+        var board = new BitboardChessBoard();
+        board.resetBoard();
+        var game = new ChessGameImpl();
+        game.setBoard(board);
+
+        game.makeMove(new ChessMoveImpl(new ChessPositionImpl(2, 5), new ChessPositionImpl(4, 5), null));
+
+        Assertions.assertSame(board, game.getBoard());
+        Assertions.assertEquals(new ChessPositionImpl(1, 5), board.findKing(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+    }
+}
@@ -0,0 +1,55 @@
+package unitTests.chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FenCodecTests {
+
+    @Test
+    public void startPositionRoundTrip() {
+        var board = new ChessBoardImpl();
+        board.resetBoard();
+        var game = new ChessGameImpl();
+        game.setBoard(board);
+
+        Assertions.assertEquals(FenCodec.START_POSITION, FenCodec.encode(game));
+        var decoded = FenCodec.decode(FenCodec.START_POSITION);
+        Assertions.assertEquals(board, decoded.getBoard());
+        Assertions.assertEquals(game.getPositionHash(), decoded.getPositionHash());
+    }
+
+    @Test
+    public void stateRoundTrip() throws InvalidMoveException {
+        var game = FenCodec.decode("r3k2r/8/8/8/4p3/8/3P4/R3K2R w Kq - 0 1");
+        game.makeMove(new ChessMoveImpl(ChessPositionImpl.of(2, 4), ChessPositionImpl.of(4, 4), null));
+
+        var fen = FenCodec.encode(game);
+        Assertions.assertEquals("r3k2r/8/8/8/3Pp3/8/8/R3K2R b Kq d3 0 1", fen);
+        var decoded = FenCodec.decode(fen);
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, decoded.getTeamTurn());
+        Assertions.assertEquals(ChessGameImpl.WHITE_KINGSIDE_CASTLE | ChessGameImpl.BLACK_QUEENSIDE_CASTLE,
+                decoded.getCastlingRights());
+        Assertions.assertEquals(ChessPositionImpl.toSquare(3, 4), decoded.getEnPassantSquare());
+        Assertions.assertEquals(game.getPositionHash(), decoded.getPositionHash());
+        // The en passant capture survives the round trip
+        decoded.makeMove(new ChessMoveImpl(ChessPositionImpl.of(4, 5), ChessPositionImpl.of(3, 4), null));
+        Assertions.assertNull(decoded.getBoard().getPiece(ChessPositionImpl.of(4, 4)));
+    }
+
+    @Test
+    public void rejectsMalformedFen() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FenCodec.decode("8/8/8 w"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> FenCodec.decode("rnbqkbnr/ppppxppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"));
+    }
+
+    @Test
+    public void rejectsBadTurnAndEnPassant() {
+        for (var fields : new String[]{"x KQkq -", "W KQkq -", "w KQkq e", "w KQkq z9", "w KQkq e0", "w KQkq e33"}) {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> FenCodec.decode("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR " + fields + " 0 1"),
+                    "Accepted " + fields);
+        }
+    }
+}
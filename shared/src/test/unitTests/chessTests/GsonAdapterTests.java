@@ -0,0 +1,52 @@
+package unitTests.chessTests;
+
+import chess.*;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class GsonAdapterTests {
+
+    private static ChessGameImpl newGame(ChessBoard board) throws InvalidMoveException {
+        board.resetBoard();
+        var game = new ChessGameImpl();
+        game.setBoard(board);
+        game.makeMove(new ChessMoveImpl(ChessPositionImpl.of(2, 5), ChessPositionImpl.of(4, 5), null));
+        return game;
+    }
+
+    @Test
+    public void roundTripsBothBoards() throws InvalidMoveException {
+        var gson = ChessGameImpl.getGsonAdapter();
+        for (ChessBoard board : new ChessBoard[]{new ChessBoardImpl(), new BitboardChessBoard()}) {
+            var game = newGame(board);
+            var copy = gson.fromJson(gson.toJson(game, ChessGame.class), ChessGame.class);
+            Assertions.assertEquals(board.getClass(), copy.getBoard().getClass());
+            Assertions.assertEquals(board, copy.getBoard());
+            Assertions.assertEquals(game.getPositionHash(), copy.getPositionHash());
+        }
+    }
+
+    @Test
+    public void readsBoardsSavedWithoutType() {
+        var json = "{\"currentTurnColor\":\"BLACK\",\"board\":{\"boardSpaces\":[" +
+                "[null,null,null,null,{\"teamColor\":\"BLACK\",\"type\":\"KING\"},null,null,null]," +
+                "[],[],[],[],[],[]," +
+                "[null,null,null,null,{\"teamColor\":\"WHITE\",\"type\":\"KING\"},null,null,null]]}}";
+        var game = ChessGameImpl.getGsonAdapter().fromJson(json, ChessGameImpl.class);
+
+        Assertions.assertEquals(ChessBoardImpl.class, game.getBoard().getClass());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        Assertions.assertEquals(ChessGameImpl.ALL_CASTLING_RIGHTS, game.getCastlingRights());
+        Assertions.assertEquals(ChessPositionImpl.of(8, 5), game.getBoard().findKing(ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(ChessPositionImpl.of(1, 5), game.getBoard().findKing(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    public void rejectsPieceWithoutTeamColor() {
+        var json = "{\"board\":{\"boardSpaces\":[[{\"type\":\"KING\"}],[],[],[],[],[],[],[]]}}";
+        var exception = Assertions.assertThrows(JsonParseException.class,
+                () -> ChessGameImpl.getGsonAdapter().fromJson(json, ChessGameImpl.class));
+        Assertions.assertEquals("piece has no teamColor", exception.getMessage());
+    }
+}
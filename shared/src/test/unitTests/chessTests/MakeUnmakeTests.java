@@ -0,0 +1,70 @@
+package unitTests.chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MakeUnmakeTests {
+
+    @Test
+    public void unmakeRestoresSpecialMoves() {
+        var board = new ChessBoardImpl();
+        board.addPiece(new ChessPositionImpl(1, 5), new King(ChessGame.TeamColor.WHITE));
+        board.addPiece(new ChessPositionImpl(1, 8), new Rook(ChessGame.TeamColor.WHITE));
+        board.addPiece(new ChessPositionImpl(5, 5), new Pawn(ChessGame.TeamColor.WHITE));
+        board.addPiece(new ChessPositionImpl(7, 2), new Pawn(ChessGame.TeamColor.WHITE));
+        board.addPiece(new ChessPositionImpl(8, 1), new Rook(ChessGame.TeamColor.BLACK));
+        board.addPiece(new ChessPositionImpl(8, 5), new King(ChessGame.TeamColor.BLACK));
+        board.addPiece(new ChessPositionImpl(7, 4), new Pawn(ChessGame.TeamColor.BLACK));
+        var game = new ChessGameImpl();
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        var before = board.boardToString(true);
+
+        game.makeMove(ChessMoveImpl.encode(ChessPositionImpl.toSquare(7, 4), ChessPositionImpl.toSquare(5, 4), null,
+                ChessMoveImpl.FLAG_DOUBLE_PAWN_PUSH));
+        Assertions.assertEquals(ChessPositionImpl.toSquare(6, 4), game.getEnPassantSquare());
+        var afterPush = board.boardToString(true);
+
+        var enPassant = ChessMoveImpl.encode(ChessPositionImpl.toSquare(5, 5), ChessPositionImpl.toSquare(6, 4), null,
+                ChessMoveImpl.FLAG_EN_PASSANT | ChessMoveImpl.FLAG_CAPTURE);
+        var castle = ChessMoveImpl.encode(ChessPositionImpl.toSquare(1, 5), ChessPositionImpl.toSquare(1, 7), null,
+                ChessMoveImpl.FLAG_CASTLE);
+        var promotion = ChessMoveImpl.encode(ChessPositionImpl.toSquare(7, 2), ChessPositionImpl.toSquare(8, 1),
+                ChessPiece.PieceType.QUEEN, ChessMoveImpl.FLAG_CAPTURE);
+        for (int move : new int[]{enPassant, castle, promotion}) {
+            game.makeMove(move);
+            Assertions.assertNotEquals(afterPush, board.boardToString(true));
+            game.unmakeMove();
+            Assertions.assertEquals(afterPush, board.boardToString(true));
+            Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+            Assertions.assertEquals(ChessGameImpl.ALL_CASTLING_RIGHTS, game.getCastlingRights());
+            Assertions.assertEquals(ChessPositionImpl.toSquare(6, 4), game.getEnPassantSquare());
+        }
+        Assertions.assertEquals(ChessPiece.PieceType.PAWN, board.getPiece(new ChessPositionImpl(7, 2)).getPieceType());
+
+        game.unmakeMove();
+        Assertions.assertEquals(before, board.boardToString(true));
+        Assertions.assertEquals(-1, game.getEnPassantSquare());
+    }
+
+    @Test
+    public void castlingRightsLostWhenRookCaptured() {
+        var board = new ChessBoardImpl();
+        board.addPiece(new ChessPositionImpl(1, 5), new King(ChessGame.TeamColor.WHITE));
+        board.addPiece(new ChessPositionImpl(1, 8), new Rook(ChessGame.TeamColor.WHITE));
+        board.addPiece(new ChessPositionImpl(8, 5), new King(ChessGame.TeamColor.BLACK));
+        board.addPiece(new ChessPositionImpl(8, 8), new Rook(ChessGame.TeamColor.BLACK));
+        var game = new ChessGameImpl();
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+
+        game.makeMove(ChessMoveImpl.encode(ChessPositionImpl.toSquare(8, 8), ChessPositionImpl.toSquare(1, 8), null,
+                ChessMoveImpl.FLAG_CAPTURE));
+        Assertions.assertEquals(ChessGameImpl.WHITE_QUEENSIDE_CASTLE | ChessGameImpl.BLACK_QUEENSIDE_CASTLE,
+                game.getCastlingRights());
+        game.unmakeMove();
+        Assertions.assertEquals(ChessGameImpl.ALL_CASTLING_RIGHTS, game.getCastlingRights());
+        Assertions.assertEquals(ChessPiece.PieceType.ROOK, board.getPiece(new ChessPositionImpl(1, 8)).getPieceType());
+    }
+}
@@ -0,0 +1,63 @@
+package unitTests.chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+public class MoveEncodingTests {
+
+    @Test
+    public void encodeDecodeRoundTrip() {
+        var move = new ChessMoveImpl(new ChessPositionImpl(7, 3), new ChessPositionImpl(8, 4),
+                ChessPiece.PieceType.KNIGHT);
+        var encoded = ChessMoveImpl.encode(move) | ChessMoveImpl.FLAG_CAPTURE;
+
+        Assertions.assertEquals(ChessPositionImpl.toSquare(7, 3), ChessMoveImpl.getStartSquare(encoded));
+        Assertions.assertEquals(ChessPositionImpl.toSquare(8, 4), ChessMoveImpl.getEndSquare(encoded));
+        Assertions.assertEquals(ChessPiece.PieceType.KNIGHT, ChessMoveImpl.getPromotionPiece(encoded));
+        Assertions.assertTrue(ChessMoveImpl.hasFlag(encoded, ChessMoveImpl.FLAG_CAPTURE));
+        Assertions.assertEquals(move, ChessMoveImpl.decode(encoded));
+    }
+
+    @Test
+    public void bufferMatchesCollectionAdapter() {
+        var board = new ChessBoardImpl();
+        board.resetBoard();
+        var king = new King(ChessGame.TeamColor.WHITE);
+        var kingPosition = new ChessPositionImpl(4, 4);
+        board.addPiece(kingPosition, king);
+        board.addPiece(new ChessPositionImpl(3, 3), new Knight(ChessGame.TeamColor.WHITE));
+
+        int[] buffer = new int[ChessPieceImpl.MAX_PIECE_MOVES];
+        var moveCount = king.pieceMoves(board, ChessPositionImpl.toSquare(kingPosition), buffer, 0);
+        var moves = king.pieceMoves(board, kingPosition);
+
+        // Blocked by the knight in one direction only
+        Assertions.assertEquals(7, moveCount);
+        Assertions.assertEquals(moveCount, moves.size());
+        var decoded = new HashSet<ChessMove>();
+        for (int i = 0; i < moveCount; i++)
+            decoded.add(ChessMoveImpl.decode(buffer[i]));
+        Assertions.assertEquals(new HashSet<>(moves), decoded);
+    }
+
+    @Test
+    public void sharedInstancesSurviveJson() {
+        var board = new ChessBoardImpl();
+        board.resetBoard();
+        var game = new ChessGameImpl();
+        game.setBoard(board);
+        var gson = ChessGameImpl.getGsonAdapter();
+
+        var copy = gson.fromJson(gson.toJson(game), ChessGameImpl.class);
+        Assertions.assertSame(ChessPieceImpl.getInstance(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN),
+                copy.getBoard().getPiece(ChessPositionImpl.of(8, 4)));
+
+        var move = new ChessMoveImpl(ChessPositionImpl.of(2, 5), ChessPositionImpl.of(4, 5), null);
+        var moveCopy = gson.fromJson(gson.toJson(move, ChessMove.class), ChessMove.class);
+        Assertions.assertSame(move.getStartPosition(), moveCopy.getStartPosition());
+        Assertions.assertSame(ChessPositionImpl.of(4, 5), ChessMoveImpl.decode(ChessMoveImpl.encode(move)).getEndPosition());
+    }
+}
@@ -0,0 +1,69 @@
+package unitTests.chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MoveHistoryTests {
+
+    private static ChessGameImpl newGame() {
+        var board = new ChessBoardImpl();
+        board.resetBoard();
+        var game = new ChessGameImpl();
+        game.setBoard(board);
+        return game;
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMoveImpl(ChessPositionImpl.of(startRow, startCol), ChessPositionImpl.of(endRow, endCol), null);
+    }
+
+    @Test
+    public void replayFromSnapshotReachesSamePosition() throws InvalidMoveException {
+        var game = newGame();
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(7, 4, 5, 4));
+        var snapshot = FenCodec.encode(game);
+        var snapshotPly = game.getPly();
+        game.makeMove(move(4, 5, 5, 4));
+        game.makeMove(move(8, 4, 5, 4));
+
+        Assertions.assertEquals(4, game.getPly());
+        var loggedMoves = game.getPlayedMoves(snapshotPly);
+        Assertions.assertEquals(2, loggedMoves.length);
+        Assertions.assertTrue(ChessMoveImpl.hasFlag(loggedMoves[0], ChessMoveImpl.FLAG_CAPTURE));
+
+        var replayed = FenCodec.decode(snapshot);
+        replayed.setPlayedMoves(snapshotPly, new int[0]);
+        for (int move : loggedMoves)
+            replayed.makeMove(ChessMoveImpl.decode(move));
+        Assertions.assertEquals(game.getPly(), replayed.getPly());
+        Assertions.assertEquals(game.getPositionHash(), replayed.getPositionHash());
+    }
+
+    @Test
+    public void searchMovesAreNotRecorded() throws InvalidMoveException {
+        var game = newGame();
+        game.makeMove(move(2, 4, 4, 4));
+        int[] moves = new int[ChessGameImpl.MAX_POSITION_MOVES];
+        game.legalMoves(moves);
+        game.makeMove(moves[0]);
+        game.unmakeMove();
+
+        Assertions.assertEquals(1, game.getPly());
+        Assertions.assertEquals(0, game.getPlayedMoves(1).length);
+    }
+
+    @Test
+    public void historyBeforeNewBoardIsUnavailable() throws InvalidMoveException {
+        var game = newGame();
+        game.makeMove(move(2, 4, 4, 4));
+        var board = new ChessBoardImpl();
+        board.resetBoard();
+        game.setBoard(board);
+
+        Assertions.assertEquals(1, game.getPly());
+        Assertions.assertNull(game.getPlayedMoves(0));
+        Assertions.assertEquals(0, game.getPlayedMoves(1).length);
+    }
+}
@@ -0,0 +1,67 @@
+package unitTests.chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+public class PositionCacheTests {
+
+    @AfterEach
+    public void removeCache() {
+        ChessGameImpl.setPositionCache(null);
+    }
+
+    private static ChessGameImpl newGame() {
+        var board = new ChessBoardImpl();
+        board.resetBoard();
+        var game = new ChessGameImpl();
+        game.setBoard(board);
+        return game;
+    }
+
+    @Test
+    public void sameOpeningHitsCache() throws InvalidMoveException {
+        var cache = new PositionCache(1024);
+        ChessGameImpl.setPositionCache(cache);
+        var move = new ChessMoveImpl(new ChessPositionImpl(2, 5), new ChessPositionImpl(4, 5), null);
+
+        newGame().makeMove(move);
+        Assertions.assertEquals(0, cache.getHitCount());
+        newGame().makeMove(move);
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void cachedAnswersMatchUncached() throws InvalidMoveException {
+        // Fool's mate
+        var game = newGame();
+        game.makeMove(new ChessMoveImpl(new ChessPositionImpl(2, 6), new ChessPositionImpl(3, 6), null));
+        game.makeMove(new ChessMoveImpl(new ChessPositionImpl(7, 5), new ChessPositionImpl(5, 5), null));
+        game.makeMove(new ChessMoveImpl(new ChessPositionImpl(2, 7), new ChessPositionImpl(4, 7), null));
+        game.makeMove(new ChessMoveImpl(new ChessPositionImpl(8, 4), new ChessPositionImpl(4, 8), null));
+        var kingPosition = new ChessPositionImpl(1, 5);
+        var uncachedMoves = game.validMoves(kingPosition);
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+
+        ChessGameImpl.setPositionCache(new PositionCache(1024));
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+        Assertions.assertTrue(game.analyzePosition().isCheckmate());
+        Assertions.assertEquals(new HashSet<>(uncachedMoves), new HashSet<>(game.validMoves(kingPosition)));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        var cache = new PositionCache(16);
+        var entry = new PositionCache.Entry(new int[0], false);
+        for (long hash = 0; hash < 64; hash++)
+            cache.put(hash, entry);
+        Assertions.assertEquals(16, cache.size());
+        Assertions.assertEquals(48, cache.getEvictionCount());
+        Assertions.assertNotNull(cache.get(63));
+        Assertions.assertNull(cache.get(0));
+    }
+}
@@ -0,0 +1,70 @@
+package unitTests.chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ZobristTests {
+
+    private static ChessGameImpl newGame(ChessBoard board) {
+        board.resetBoard();
+        var game = new ChessGameImpl();
+        game.setBoard(board);
+        return game;
+    }
+
+    private static void move(ChessGameImpl game, int startRow, int startCol, int endRow, int endCol)
+            throws InvalidMoveException {
+        game.makeMove(new ChessMoveImpl(new ChessPositionImpl(startRow, startCol),
+                new ChessPositionImpl(endRow, endCol), null));
+    }
+
+    @Test
+    public void incrementalKeyMatchesFullHash() throws InvalidMoveException {
+        for (ChessBoard board : new ChessBoard[]{new ChessBoardImpl(), new BitboardChessBoard()}) {
+            var game = newGame(board);
+            move(game, 2, 5, 4, 5);
+            move(game, 7, 4, 5, 4);
+            move(game, 4, 5, 5, 4);
+            move(game, 8, 4, 5, 4);
+            Assertions.assertEquals(Zobrist.hashPieces(board), board.getZobristKey());
+        }
+    }
+
+    @Test
+    public void transpositionsHashEqually() throws InvalidMoveException {
+        var first = newGame(new ChessBoardImpl());
+        move(first, 1, 7, 3, 6);
+        move(first, 8, 7, 6, 6);
+        move(first, 1, 2, 3, 3);
+
+        var second = newGame(new ChessBoardImpl());
+        move(second, 1, 2, 3, 3);
+        move(second, 8, 7, 6, 6);
+        move(second, 1, 7, 3, 6);
+
+        Assertions.assertEquals(first.getPositionHash(), second.getPositionHash());
+        Assertions.assertEquals(first.getBoard(), second.getBoard());
+        Assertions.assertEquals(first.getBoard().hashCode(), second.getBoard().hashCode());
+    }
+
+    @Test
+    public void stateChangesHash() throws InvalidMoveException {
+        var game = newGame(new ChessBoardImpl());
+        var startHash = game.getPositionHash();
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertNotEquals(startHash, game.getPositionHash());
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+
+        // Knights out and back: same pieces, but castling rights are unchanged so the hash returns
+        move(game, 1, 7, 3, 6);
+        move(game, 8, 7, 6, 6);
+        move(game, 3, 6, 1, 7);
+        move(game, 6, 6, 8, 7);
+        Assertions.assertEquals(startHash, game.getPositionHash());
+
+        // Rook out and back loses a castling right
+        game.setCastlingRights(ChessGameImpl.ALL_CASTLING_RIGHTS & ~ChessGameImpl.WHITE_KINGSIDE_CASTLE);
+        Assertions.assertNotEquals(startHash, game.getPositionHash());
+    }
+}
@@ -0,0 +1,123 @@
+package unitTests.webSocketTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import webSocketMessages.BinaryMessageCodec;
+import webSocketMessages.serverMessages.ServerMessage;
+import webSocketMessages.userCommands.UserGameCommand;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+public class BinaryMessageCodecTests {
+
+    @Test
+    public void commandRoundTripInternsAuth() {
+        var clientCodec = new BinaryMessageCodec();
+        var serverCodec = new BinaryMessageCodec();
+        var authToken = "2a7d0f4e-63b1-4c8a-9d52-1f0e8c3b7a96";
+
+        var join = new UserGameCommand(authToken);
+        join.setCommandType(UserGameCommand.CommandType.JOIN_PLAYER);
+        join.setGameID(300);
+        join.setPlayerColor(ChessGame.TeamColor.BLACK);
+        join.setGameVersion(Long.toHexString(-42L));
+        join.setMoveDeltas(true);
+        var joinFrame = clientCodec.encodeCommand(join);
+        var decodedJoin = serverCodec.decodeCommand(ByteBuffer.wrap(joinFrame));
+        Assertions.assertEquals(join, decodedJoin);
+        Assertions.assertEquals(Integer.valueOf(300), decodedJoin.getGameID());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, decodedJoin.getPlayerColor());
+        Assertions.assertEquals(join.getGameVersion(), decodedJoin.getGameVersion());
+        Assertions.assertTrue(decodedJoin.getMoveDeltas());
+        Assertions.assertFalse(decodedJoin.getBatchMessages());
+
+        var move = new UserGameCommand(authToken);
+        move.setCommandType(UserGameCommand.CommandType.MAKE_MOVE);
+        move.setGameID(300);
+        move.setChessMove(new ChessMoveImpl(ChessPositionImpl.of(7, 2), ChessPositionImpl.of(8, 1),
+                ChessPiece.PieceType.QUEEN));
+        var moveFrame = clientCodec.encodeCommand(move);
+        // Type, flags, 2 byte game ID, 1 byte auth handle, 2 byte move
+        Assertions.assertEquals(7, moveFrame.length);
+        var decodedMove = serverCodec.decodeCommand(ByteBuffer.wrap(moveFrame));
+        Assertions.assertEquals(authToken, decodedMove.getAuthString());
+        Assertions.assertEquals(move.getChessMove(), decodedMove.getChessMove());
+        Assertions.assertNull(decodedMove.getPlayerColor());
+    }
+
+    @Test
+    public void messageRoundTrip() throws InvalidMoveException {
+        var game = FenCodec.decode(FenCodec.START_POSITION);
+        var move = new ChessMoveImpl(ChessPositionImpl.of(2, 5), ChessPositionImpl.of(4, 5), null);
+        game.makeMove(move);
+        var gameVersion = Long.toHexString(game.getPositionHash());
+
+        var loadGame = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME);
+        loadGame.setGame(game);
+        loadGame.setGameVersion(gameVersion);
+        var decodedLoadGame = BinaryMessageCodec.decodeMessage(ByteBuffer.wrap(BinaryMessageCodec.encodeMessage(loadGame)));
+        Assertions.assertEquals(ServerMessage.ServerMessageType.LOAD_GAME, decodedLoadGame.getServerMessageType());
+        Assertions.assertEquals(game.getBoard(), decodedLoadGame.getGame().getBoard());
+        Assertions.assertEquals(gameVersion, Long.toHexString(decodedLoadGame.getGame().getPositionHash()));
+        Assertions.assertEquals(gameVersion, decodedLoadGame.getGameVersion());
+
+        var moveApplied = new ServerMessage(ServerMessage.ServerMessageType.MOVE_APPLIED);
+        moveApplied.setMove(ChessMoveImpl.encode(move));
+        moveApplied.setTeamTurn(game.getTeamTurn());
+        moveApplied.setCheckState(ServerMessage.CheckState.CHECK);
+        moveApplied.setGameVersion(gameVersion);
+        var notification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION);
+        notification.setMessage("white made move e2 to e4");
+        var batch = BinaryMessageCodec.encodeBatch(List.of(BinaryMessageCodec.encodeMessage(moveApplied),
+                BinaryMessageCodec.encodeMessage(notification)));
+
+        var decodedBatch = BinaryMessageCodec.decodeMessage(ByteBuffer.wrap(batch));
+        Assertions.assertEquals(ServerMessage.ServerMessageType.BATCH, decodedBatch.getServerMessageType());
+        Assertions.assertEquals(2, decodedBatch.getMessages().size());
+        var decodedMove = decodedBatch.getMessages().get(0);
+        Assertions.assertEquals(move, ChessMoveImpl.decode(decodedMove.getMove()));
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, decodedMove.getTeamTurn());
+        Assertions.assertEquals(ServerMessage.CheckState.CHECK, decodedMove.getCheckState());
+        Assertions.assertEquals(gameVersion, decodedMove.getGameVersion());
+        Assertions.assertEquals(notification.getMessage(), decodedBatch.getMessages().get(1).getMessage());
+    }
+
+    @Test
+    public void truncatedFrameRejected() {
+        var frame = BinaryMessageCodec.encodeMessage(new ServerMessage(ServerMessage.ServerMessageType.ERROR));
+        frame[1] = 1 << 2;
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BinaryMessageCodec.decodeMessage(ByteBuffer.wrap(frame)));
+    }
+
+    @Test
+    public void oversizedStringLengthRejected() {
+        // A new auth token claiming to be about 2 GB long, and one whose length overflows to negative
+        byte[][] frames = {
+                {0, 1, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 'a', 'b'},
+                {0, 1, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 'a', 'b'}
+        };
+        for (var frame : frames) {
+            var exception = Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> new BinaryMessageCodec().decodeCommand(ByteBuffer.wrap(frame)));
+            Assertions.assertEquals("Error: bad command frame", exception.getMessage());
+        }
+    }
+
+    @Test
+    public void authTokensCapped() {
+        var clientCodec = new BinaryMessageCodec();
+        var serverCodec = new BinaryMessageCodec();
+        for (int i = 0; i <= BinaryMessageCodec.MAX_AUTH_TOKENS; i++) {
+            var command = new UserGameCommand("token" + i);
+            command.setCommandType(UserGameCommand.CommandType.LEAVE);
+            var frame = ByteBuffer.wrap(clientCodec.encodeCommand(command));
+            if (i < BinaryMessageCodec.MAX_AUTH_TOKENS)
+                Assertions.assertEquals(command.getAuthString(), serverCodec.decodeCommand(frame).getAuthString());
+            else
+                Assertions.assertThrows(IllegalArgumentException.class, () -> serverCodec.decodeCommand(frame));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package dataAccess;
+
+import chess.ChessGame;
+import model.AuthToken;
+import model.Game;
+import model.GameSummary;
+import model.User;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Wraps another DataAccess and keeps recently used auth tokens and users in memory, so checking the
+ * token on every request doesn't need a database round trip. Entries expire after a time to live,
+ * which bounds how stale they can get if another server changes the same database; changes made
+ * through this object invalidate them immediately. Everything else passes straight through.
+ */
+public class CachingDataAccess implements DataAccess {
+    private final DataAccess dataAccess;
+    private final ExpiringLruCache<String, AuthToken> authTokens;
+    private final ExpiringLruCache<String, User> users;
+
+    public CachingDataAccess(DataAccess dataAccess) {
+        this(dataAccess, 10_000, TimeUnit.MINUTES.toMillis(5));
+    }
+
+    /**
+     * @param dataAccess where the data is actually stored
+     * @param maxEntries the most auth tokens, and separately the most users, to keep
+     * @param timeToLiveMillis how long an entry is trusted after it was loaded
+     */
+    public CachingDataAccess(DataAccess dataAccess, int maxEntries, long timeToLiveMillis) {
+        this.dataAccess = dataAccess;
+        authTokens = new ExpiringLruCache<>(maxEntries, timeToLiveMillis);
+        users = new ExpiringLruCache<>(maxEntries, timeToLiveMillis);
+    }
+
+    @Override
+    public void createUser(User user) throws DataAccessException {
+        dataAccess.createUser(user);
+        users.put(user.username(), user);
+    }
+
+    @Override
+    public User getUser(String username) throws DataAccessException {
+        var user = users.get(username);
+        if (user == null) {
+            var generation = users.getGeneration();
+            user = dataAccess.getUser(username);
+            if (user != null)
+                users.putIfUnchanged(username, user, generation);
+        }
+        return user;
+    }
+
+    @Override
+    public void destroyUser(User user) throws DataAccessException {
+        users.remove(user.username());
+        authTokens.removeIf(authToken -> authToken.username().equals(user.username()));
+        dataAccess.destroyUser(user);
+        // A lookup that missed while the delete ran may have cached the row again
+        users.remove(user.username());
+        authTokens.removeIf(authToken -> authToken.username().equals(user.username()));
+    }
+
+    @Override
+    public void createAuthToken(AuthToken authToken) throws DataAccessException {
+        dataAccess.createAuthToken(authToken);
+        authTokens.put(authToken.authToken(), authToken);
+    }
+
+    @Override
+    public AuthToken getAuthToken(String authToken) throws DataAccessException {
+        if (authToken == null)
+            return dataAccess.getAuthToken(null);
+        var authTokenObject = authTokens.get(authToken);
+        if (authTokenObject == null) {
+            var generation = authTokens.getGeneration();
+            authTokenObject = dataAccess.getAuthToken(authToken);
+            if (authTokenObject != null)
+                authTokens.putIfUnchanged(authToken, authTokenObject, generation);
+        }
+        return authTokenObject;
+    }
+
+    @Override
+    public void destroyAuth(String authToken) throws DataAccessException {
+        if (authToken != null)
+            authTokens.remove(authToken);
+        dataAccess.destroyAuth(authToken);
+        // A lookup that missed while the delete ran may have cached the row again
+        if (authToken != null)
+            authTokens.remove(authToken);
+    }
+
+    @Override
+    public Integer createGame(Game game) throws DataAccessException {
+        return dataAccess.createGame(game);
+    }
+
+    @Override
+    public void updateGame(Game game) throws DataAccessException {
+        dataAccess.updateGame(game);
+    }
+
+    @Override
+    public Collection<Game> getGames() throws DataAccessException {
+        return dataAccess.getGames();
+    }
+
+    @Override
+    public Collection<GameSummary> getGameSummaries(GameQuery query) throws DataAccessException {
+        return dataAccess.getGameSummaries(query);
+    }
+
+    @Override
+    public Game getGame(Integer gameID) throws DataAccessException {
+        return dataAccess.getGame(gameID);
+    }
+
+    @Override
+    public void joinGame(User user, ChessGame.TeamColor userColor, Game game) throws DataAccessException {
+        dataAccess.joinGame(user, userColor, game);
+    }
+
+    @Override
+    public void destroyGame(Integer gameID) throws DataAccessException {
+        dataAccess.destroyGame(gameID);
+    }
+
+    @Override
+    public void flushGame(Integer gameID) throws DataAccessException {
+        dataAccess.flushGame(gameID);
+    }
+
+    @Override
+    public void clearData() throws DataAccessException {
+        authTokens.clear();
+        users.clear();
+        dataAccess.clearData();
+        authTokens.clear();
+        users.clear();
+    }
+
+    /**
+     * A size-bounded map that evicts the least recently used entry and ignores entries older than the time to live.
+     * Every removal starts a new generation, so a value read from the database before a removal can be kept from
+     * landing after it.
+     */
+    private static class ExpiringLruCache<K, V> {
+        private record Entry<V>(V value, long expiresAtNanos) { }
+
+        private final long timeToLiveNanos;
+        private final LinkedHashMap<K, Entry<V>> entries;
+        private long generation;
+
+        ExpiringLruCache(int maxEntries, long timeToLiveMillis) {
+            timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+            entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized V get(K key) {
+            var entry = entries.get(key);
+            if (entry == null)
+                return null;
+            if (System.nanoTime() - entry.expiresAtNanos() > 0) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value();
+        }
+
+        synchronized void put(K key, V value) {
+            entries.put(key, new Entry<>(value, System.nanoTime() + timeToLiveNanos));
+        }
+
+        synchronized long getGeneration() {
+            return generation;
+        }
+
+        // Skips the put if anything was removed since the generation was read
+        synchronized void putIfUnchanged(K key, V value, long expectedGeneration) {
+            if (generation == expectedGeneration)
+                put(key, value);
+        }
+
+        synchronized void remove(K key) {
+            generation++;
+            entries.remove(key);
+        }
+
+        synchronized void removeIf(Predicate<V> predicate) {
+            generation++;
+            entries.values().removeIf(entry -> predicate.test(entry.value()));
+        }
+
+        synchronized void clear() {
+            generation++;
+            entries.clear();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package dataAccess;
 import chess.ChessGame;
 import model.AuthToken;
 import model.Game;
+import model.GameSummary;
 import model.User;
 
 import java.util.Collection;
@@ -71,6 +72,14 @@ public interface DataAccess {
      */
     Collection<Game> getGames() throws DataAccessException;
 
+    /**
+     * Lists a page of games without loading their boards
+     * @param query which games to list
+     * @return summaries of the matching games, in order of ID
+     * @throws DataAccessException when data access fails
+     */
+    Collection<GameSummary> getGameSummaries(GameQuery query) throws DataAccessException;
+
     /**
      * @return a game from the database
      * @param gameID ID of the game to get
@@ -83,7 +92,8 @@ public interface DataAccess {
      * @param user The game to add
      * @param userColor The team color of the user
      * @param game The game to add
-     * @throws DataAccessException when data access fails
+     * @throws DataAccessException "already taken" when anyone, including this user, already has the seat,
+     * "bad request" when the game doesn't exist, or when data access fails
      */
     void joinGame(User user, ChessGame.TeamColor userColor, Game game) throws DataAccessException;
 
@@ -94,6 +104,13 @@ public interface DataAccess {
      */
     void destroyGame(Integer gameID) throws DataAccessException;
 
+    /**
+     * Makes sure any changes to the game that are still buffered in memory are written to the database
+     * @param gameID ID of the game to write
+     * @throws DataAccessException when data access fails
+     */
+    void flushGame(Integer gameID) throws DataAccessException;
+
     /**
      * Clears all user, authentication, and game data from the database
      * @throws DataAccessException when data access fails
@@ -0,0 +1,30 @@
+package dataAccess;
+
+import model.GameSummary;
+
+/**
+ * Selects one page of the game list. Games are listed in order of ID; null filters match every game.
+ * @param afterGameID Only games with a larger ID, or null to start at the beginning
+ * @param limit The most games to return
+ * @param openSeat Only games with an empty seat
+ * @param player Only games this user is playing in
+ * @param gameOver Only games that have ended, or that haven't
+ * @param namePrefix Only games whose name starts with this, ignoring case
+ */
+public record GameQuery(Integer afterGameID, int limit, boolean openSeat, String player, Boolean gameOver,
+                        String namePrefix) {
+    /**
+     * @return whether the game passes every filter, ignoring the page bounds
+     */
+    public boolean matches(GameSummary game) {
+        if (openSeat && game.whiteUsername() != null && game.blackUsername() != null)
+            return false;
+        if (player != null && !player.equals(game.whiteUsername()) && !player.equals(game.blackUsername()))
+            return false;
+        if (gameOver != null && gameOver != game.gameOver())
+            return false;
+        // Case-insensitive, like the database's LIKE
+        return namePrefix == null || (game.gameName() != null
+                && game.gameName().regionMatches(true, 0, namePrefix, 0, namePrefix.length()));
+    }
+}
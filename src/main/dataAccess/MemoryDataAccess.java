@@ -3,15 +3,23 @@ package dataAccess;
 import chess.ChessGame;
 import model.AuthToken;
 import model.Game;
+import model.GameSummary;
 import model.User;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps all data in memory. Safe to use from many threads at once, so the server can run on it for load
+ * tests and short-lived tournaments; every change to a single entry is atomic.
+ */
 public class MemoryDataAccess implements DataAccess{
-    private HashMap<String, User> users = new HashMap<>();
-    private HashMap<String, AuthToken> authTokens = new HashMap<>();
-    private HashMap<Integer, Game> games = new HashMap<>();
+    private final ConcurrentHashMap<String, User> users = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AuthToken> authTokens = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Game> games = new ConcurrentHashMap<>();
 
     private static MemoryDataAccess memoryDataAccess = new MemoryDataAccess();
 
@@ -19,47 +27,47 @@ public class MemoryDataAccess implements DataAccess{
         return memoryDataAccess;
     }
 
-    private static int gameCount = 0;
+    private final AtomicInteger gameCount = new AtomicInteger();
 
     @Override
     public void createUser(User user) throws DataAccessException {
-        if (users.containsKey(user.username()))
+        if (users.putIfAbsent(user.username(), user) != null)
             throw new DataAccessException("already taken");
-        users.put(user.username(), user);
     }
 
     @Override
     public User getUser(String username) throws DataAccessException {
-        return users.get(username);
+        return username == null ? null : users.get(username);
     }
 
     @Override
     public void destroyUser(User user) throws DataAccessException {
-        users.remove(user.username());
+        if (user.username() != null)
+            users.remove(user.username());
     }
 
     @Override
     public void createAuthToken(AuthToken authToken) throws DataAccessException {
-        if (users.containsKey(authToken.authToken()))
+        if (authTokens.putIfAbsent(authToken.authToken(), authToken) != null)
             throw new DataAccessException("Token taken");
-        authTokens.put(authToken.authToken(), authToken);
     }
 
     @Override
     public AuthToken getAuthToken(String authToken) throws DataAccessException {
-        return authTokens.get(authToken);
+        return authToken == null ? null : authTokens.get(authToken);
     }
 
     @Override
     public void destroyAuth(String authToken) throws DataAccessException {
-        authTokens.remove(authToken);
+        if (authToken != null)
+            authTokens.remove(authToken);
     }
 
     @Override
     public Integer createGame(Game game) throws DataAccessException {
-        if (games.containsKey(game.gameID()))
+        if (game.gameID() != null && games.containsKey(game.gameID()))
             throw new DataAccessException("gameID already taken");
-        var gameID = ++gameCount;
+        var gameID = gameCount.incrementAndGet();
         games.put(gameID, new Game(
                 gameID,
                 game.whiteUsername(),
@@ -73,46 +81,74 @@ public class MemoryDataAccess implements DataAccess{
 
     @Override
     public void updateGame(Game game) throws DataAccessException {
-        if (!games.containsKey(game.gameID()))
+        if (game.gameID() == null || games.replace(game.gameID(), game) == null)
             throw new DataAccessException("game does not exist");
-        games.put(game.gameID(), game);
     }
 
     @Override
     public Collection<Game> getGames() throws DataAccessException {
-        return games.values();
+        // A copy, so callers can iterate it while other threads add and change games
+        return new ArrayList<>(games.values());
+    }
+
+    @Override
+    public Collection<GameSummary> getGameSummaries(GameQuery query) throws DataAccessException {
+        var summaries = new ArrayList<GameSummary>();
+        for (var game : games.values()) {
+            var summary = GameSummary.of(game);
+            if ((query.afterGameID() == null || summary.gameID() > query.afterGameID()) && query.matches(summary))
+                summaries.add(summary);
+        }
+        summaries.sort(Comparator.comparing(GameSummary::gameID));
+        return summaries.size() > query.limit() ? summaries.subList(0, query.limit()) : summaries;
     }
 
     @Override
     public Game getGame(Integer gameID) throws DataAccessException {
-        return games.get(gameID);
+        return gameID == null ? null : games.get(gameID);
     }
 
     @Override
     public void joinGame(User user, ChessGame.TeamColor userColor, Game game) throws DataAccessException {
         var gameID = game.gameID();
-        if (!games.containsKey(gameID))
+        if (gameID == null)
             throw new DataAccessException("bad request");
-        var oldGame = games.get(gameID);
-        games.put(gameID, new Game(
-                gameID,
-                userColor == ChessGame.TeamColor.WHITE ? user.username() : oldGame.whiteUsername(),
-                userColor == ChessGame.TeamColor.BLACK ? user.username() : oldGame.blackUsername(),
-                oldGame.gameName(),
-                oldGame.game(),
-                oldGame.gameOver()
-        ));
+        // Retry until the seat is claimed against an unchanged game, so two joins can't both take it
+        while (true) {
+            var oldGame = games.get(gameID);
+            if (oldGame == null)
+                throw new DataAccessException("bad request");
+            var seatHolder = userColor == ChessGame.TeamColor.WHITE ? oldGame.whiteUsername() : oldGame.blackUsername();
+            if (seatHolder != null)
+                throw new DataAccessException("already taken");
+            var newGame = new Game(
+                    gameID,
+                    userColor == ChessGame.TeamColor.WHITE ? user.username() : oldGame.whiteUsername(),
+                    userColor == ChessGame.TeamColor.BLACK ? user.username() : oldGame.blackUsername(),
+                    oldGame.gameName(),
+                    oldGame.game(),
+                    oldGame.gameOver()
+            );
+            if (games.replace(gameID, oldGame, newGame))
+                return;
+        }
     }
 
     @Override
     public void destroyGame(Integer gameID) throws DataAccessException {
-        games.remove(gameID);
+        if (gameID != null)
+            games.remove(gameID);
+    }
+
+    @Override
+    public void flushGame(Integer gameID) throws DataAccessException {
+        // Nothing is buffered
     }
 
     @Override
     public void clearData() throws DataAccessException {
-        users = new HashMap<>();
-        authTokens = new HashMap<>();
-        games = new HashMap<>();
+        users.clear();
+        authTokens.clear();
+        games.clear();
     }
 }
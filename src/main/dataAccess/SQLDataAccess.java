@@ -6,8 +6,11 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.typeadapters.RuntimeTypeAdapterFactory;
 import model.AuthToken;
 import model.Game;
+import model.GameSummary;
 import model.User;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
@@ -23,6 +26,19 @@ public class SQLDataAccess implements DataAccess{
 
     private static Gson gameAdapter = ChessGameImpl.getGsonAdapter();
 
+    /**
+     * How games are written to the chess_game column. FEN rows are a few dozen bytes instead of several KB
+     * of JSON. Either format is read back regardless of this setting, so old JSON rows stay readable.
+     */
+    public enum GameFormat { JSON, FEN }
+
+    // Chosen per deployment with -Dchess.gameFormat=json|fen
+    private static final GameFormat gameFormat =
+            GameFormat.valueOf(System.getProperty("chess.gameFormat", "fen").toUpperCase());
+
+    // The whole game is stored at least this many moves apart; the moves in between only go in game_move
+    private static final int SNAPSHOT_INTERVAL = 32;
+
     public SQLDataAccess() {
         try {
             database.initialize();
@@ -31,6 +47,20 @@ public class SQLDataAccess implements DataAccess{
         }
     }
 
+    /**
+     * @return the state of the connection pool shared by every SQLDataAccess
+     */
+    public static Database.PoolMetrics getPoolMetrics() {
+        return database.getMetrics();
+    }
+
+    /**
+     * Closes the connection pool shared by every SQLDataAccess, for when the server shuts down
+     */
+    public static void shutdown() {
+        database.shutdown();
+    }
+
     public static void main(String[] args) {
         getInstance();
     }
@@ -141,14 +171,16 @@ public class SQLDataAccess implements DataAccess{
         if (game.game() == null)
             throw new DataAccessException("game was null");
         try(var connection = database.getConnection()) {
-            var insertString = "INSERT INTO game (white_username, black_username, game_name, chess_game, game_over) VALUES(?, ?, ?, ?, ?)";
+            var insertString = "INSERT INTO game (white_username, black_username, game_name, chess_game, game_over, ply, snapshot_ply) VALUES(?, ?, ?, ?, ?, ?, ?)";
             var insertStatement = connection.prepareStatement(insertString, Statement.RETURN_GENERATED_KEYS);
+            var ply = getPly(game.game());
             insertStatement.setString(1, game.whiteUsername());
             insertStatement.setString(2, game.blackUsername());
             insertStatement.setString(3, game.gameName());
-            var gameJSON = gameAdapter.toJson(game.game());
-            insertStatement.setString(4, gameJSON);
+            insertStatement.setString(4, encodeGame(game.game()));
             insertStatement.setBoolean(5, game.gameOver());
+            insertStatement.setInt(6, ply);
+            insertStatement.setInt(7, ply);
             insertStatement.executeUpdate();
 
             var resultSet = insertStatement.getGeneratedKeys();
@@ -162,37 +194,63 @@ public class SQLDataAccess implements DataAccess{
         }
     }
 
-    private boolean gameExists(int gameID) throws DataAccessException {
-        try(var connection = database.getConnection()) {
-            var preparedStatement = connection.prepareStatement("SELECT COUNT(*) FROM game WHERE id=?");
-            preparedStatement.setInt(1, gameID);
-            var rs = preparedStatement.executeQuery();
-            rs.next();
-            var count = rs.getInt(1);
-            return count > 0;
-        } catch (SQLException exception) {
-            throw new DataAccessException(exception.getMessage());
-        }
-    }
-
+    /**
+     * Stores a game by appending the moves made since it was last stored to game_move. The whole game is only
+     * rewritten every {@link #SNAPSHOT_INTERVAL} moves, when it ends, or when its moves aren't known.
+     */
     @Override
     public void updateGame(Game game) throws DataAccessException {
         try(var connection = database.getConnection()) {
-            if (!gameExists(game.gameID()))
+            // The moves and the ply they bring the game to are written together or not at all
+            connection.setAutoCommit(false);
+            var selectStatement = connection.prepareStatement("SELECT ply, snapshot_ply FROM game WHERE id=? FOR UPDATE");
+            selectStatement.setInt(1, game.gameID());
+            var rs = selectStatement.executeQuery();
+            if (!rs.next())
                 throw new DataAccessException("bad request");
+            var storedPly = rs.getInt("ply");
+            var snapshotPly = rs.getInt("snapshot_ply");
+
+            var ply = getPly(game.game());
+            int[] newMoves = null;
+            if (game.game() instanceof ChessGameImpl chessGame)
+                newMoves = chessGame.getPlayedMoves(storedPly);
+
+            if (newMoves != null && newMoves.length > 0) {
+                var insertStatement = connection.prepareStatement("INSERT INTO game_move (game_id, ply, move) VALUES(?, ?, ?)");
+                for (int i = 0; i < newMoves.length; i++) {
+                    insertStatement.setInt(1, game.gameID());
+                    insertStatement.setInt(2, storedPly + i);
+                    insertStatement.setInt(3, newMoves[i]);
+                    insertStatement.addBatch();
+                }
+                insertStatement.executeBatch();
+            }
 
-            var statement = "UPDATE game SET white_username=?, black_username=?, game_name=?, chess_game=?, game_over=? WHERE id=?";
-            var preparedStatement = connection.prepareStatement(statement);
-
-            preparedStatement.setString(1, game.whiteUsername());
-            preparedStatement.setString(2, game.blackUsername());
-            preparedStatement.setString(3, game.gameName());
-            var gameJSON = gameAdapter.toJson(game.game());
-            preparedStatement.setString(4, gameJSON);
-
-            preparedStatement.setInt(5, game.gameID());
-            preparedStatement.setBoolean(6, game.gameOver());
-            preparedStatement.executeUpdate();
+            PreparedStatement updateStatement;
+            if (newMoves == null || game.gameOver() || ply - snapshotPly >= SNAPSHOT_INTERVAL) {
+                if (newMoves == null) {
+                    // Logged moves past this point belong to a history the game no longer has
+                    var deleteStatement = connection.prepareStatement("DELETE FROM game_move WHERE game_id=? AND ply>=?");
+                    deleteStatement.setInt(1, game.gameID());
+                    deleteStatement.setInt(2, ply);
+                    deleteStatement.executeUpdate();
+                }
+                updateStatement = connection.prepareStatement("UPDATE game SET white_username=?, black_username=?, game_name=?, game_over=?, ply=?, chess_game=?, snapshot_ply=? WHERE id=?");
+                updateStatement.setString(6, encodeGame(game.game()));
+                updateStatement.setInt(7, ply);
+                updateStatement.setInt(8, game.gameID());
+            } else {
+                updateStatement = connection.prepareStatement("UPDATE game SET white_username=?, black_username=?, game_name=?, game_over=?, ply=? WHERE id=?");
+                updateStatement.setInt(6, game.gameID());
+            }
+            updateStatement.setString(1, game.whiteUsername());
+            updateStatement.setString(2, game.blackUsername());
+            updateStatement.setString(3, game.gameName());
+            updateStatement.setBoolean(4, game.gameOver());
+            updateStatement.setInt(5, ply);
+            updateStatement.executeUpdate();
+            connection.commit();
         } catch (SQLException exception) {
             throw new DataAccessException(exception.getMessage());
         }
@@ -203,7 +261,8 @@ public class SQLDataAccess implements DataAccess{
         ArrayList<Game> games = new ArrayList<>();
 
         try(var connection = database.getConnection()) {
-            var preparedStatement = connection.prepareStatement("SELECT * FROM game");
+            // The board isn't returned, so it isn't fetched
+            var preparedStatement = connection.prepareStatement("SELECT id, white_username, black_username, game_name FROM game");
             var rs = preparedStatement.executeQuery();
             while(rs.next()) {
                 Game game = new Game(
@@ -223,6 +282,53 @@ public class SQLDataAccess implements DataAccess{
         return games;
     }
 
+    @Override
+    public Collection<GameSummary> getGameSummaries(GameQuery query) throws DataAccessException {
+        ArrayList<GameSummary> summaries = new ArrayList<>();
+
+        var sql = new StringBuilder("SELECT id, white_username, black_username, game_name, game_over FROM game WHERE id>?");
+        var parameters = new ArrayList<Object>();
+        parameters.add(query.afterGameID() == null ? 0 : query.afterGameID());
+        if (query.openSeat())
+            sql.append(" AND (white_username IS NULL OR black_username IS NULL)");
+        if (query.player() != null) {
+            sql.append(" AND (white_username=? OR black_username=?)");
+            parameters.add(query.player());
+            parameters.add(query.player());
+        }
+        if (query.gameOver() != null) {
+            sql.append(" AND game_over=?");
+            parameters.add(query.gameOver());
+        }
+        if (query.namePrefix() != null) {
+            sql.append(" AND game_name LIKE ?");
+            parameters.add(query.namePrefix().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
+        }
+        // Walks the primary key from the cursor, so a page costs the same however far into the list it is
+        sql.append(" ORDER BY id LIMIT ?");
+        parameters.add(query.limit());
+
+        try(var connection = database.getConnection()) {
+            var preparedStatement = connection.prepareStatement(sql.toString());
+            for (int i = 0; i < parameters.size(); i++)
+                preparedStatement.setObject(i + 1, parameters.get(i));
+            var rs = preparedStatement.executeQuery();
+            while(rs.next()) {
+                summaries.add(new GameSummary(
+                        rs.getInt("id"),
+                        rs.getString("white_username"),
+                        rs.getString("black_username"),
+                        rs.getString("game_name"),
+                        rs.getBoolean("game_over")
+                ));
+            }
+        } catch (SQLException exception) {
+            throw new DataAccessException(exception.getMessage());
+        }
+
+        return summaries;
+    }
+
     @Override
     public Game getGame(Integer gameID) throws DataAccessException {
         try(var connection = database.getConnection()) {
@@ -230,13 +336,14 @@ public class SQLDataAccess implements DataAccess{
             preparedStatement.setInt(1, gameID);
             var rs = preparedStatement.executeQuery();
             if (rs.next()) {
-                var str = rs.getString("chess_game");
+                var chessGame = decodeGame(rs.getString("chess_game"));
+                replayMoves(connection, gameID, rs.getInt("snapshot_ply"), rs.getInt("ply"), chessGame);
                 return new Game(
                         rs.getInt("id"),
                         rs.getString("white_username"),
                         rs.getString("black_username"),
                         rs.getString("game_name"),
-                        gameAdapter.fromJson(rs.getString("chess_game"), ChessGameImpl.class),
+                        chessGame,
                         rs.getBoolean("game_over")
                 );
             }
@@ -248,24 +355,22 @@ public class SQLDataAccess implements DataAccess{
 
     @Override
     public void joinGame(User user, ChessGame.TeamColor userColor, Game game) throws DataAccessException {
+        if (game.gameID() == null)
+            throw new DataAccessException("bad request");
+        var seatColumn = userColor == ChessGame.TeamColor.WHITE ? "white_username" : "black_username";
         try(var connection = database.getConnection()) {
-            if (!gameExists(game.gameID()))
-                throw new DataAccessException("bad request");
+            // The seat is only taken if it's still free, so two joins can't both take it
+            var updateString = "UPDATE game SET " + seatColumn + "=? WHERE id=? AND " + seatColumn + " IS NULL";
+            var updateStatement = connection.prepareStatement(updateString);
+            updateStatement.setString(1, user.username());
+            updateStatement.setInt(2, game.gameID());
+            if (updateStatement.executeUpdate() > 0)
+                return;
 
-            var preparedStatement = connection.prepareStatement("SELECT * FROM game where id=?");
+            var preparedStatement = connection.prepareStatement("SELECT id FROM game WHERE id=?");
             preparedStatement.setInt(1, game.gameID());
             var rs = preparedStatement.executeQuery();
-            rs.next();
-
-            var updateString = "UPDATE game SET white_username=?, black_username=?, game_name=?, chess_game=? WHERE id=?";
-            var updateStatement = connection.prepareStatement(updateString);
-            var isWhite = userColor == ChessGame.TeamColor.WHITE;
-            updateStatement.setString(1, isWhite ? user.username() : game.whiteUsername());
-            updateStatement.setString(2, !isWhite ? user.username() : game.blackUsername());
-            updateStatement.setString(3, game.gameName());
-            updateStatement.setString(4, rs.getString("chess_game"));
-            updateStatement.setInt(5, game.gameID());
-            updateStatement.executeUpdate();
+            throw new DataAccessException(rs.next() ? "already taken" : "bad request");
         } catch (SQLException exception) {
             throw new DataAccessException(exception.getMessage());
         }
@@ -279,11 +384,19 @@ public class SQLDataAccess implements DataAccess{
             var preparedStatement = connection.prepareStatement("DELETE FROM game WHERE id=?");
             preparedStatement.setInt(1, gameID);
             preparedStatement.executeUpdate();
+            var moveDeleteStatement = connection.prepareStatement("DELETE FROM game_move WHERE game_id=?");
+            moveDeleteStatement.setInt(1, gameID);
+            moveDeleteStatement.executeUpdate();
         } catch (SQLException exception) {
             throw new DataAccessException(exception.getMessage());
         }
     }
 
+    @Override
+    public void flushGame(Integer gameID) throws DataAccessException {
+        // Every change is written as soon as it's made
+    }
+
     @Override
     public void clearData() throws DataAccessException {
         try(var connection = database.getConnection()) {
@@ -293,12 +406,56 @@ public class SQLDataAccess implements DataAccess{
             gameClearStatement.executeUpdate();
             var authClearStatement = connection.prepareStatement("TRUNCATE TABLE auth_token");
             authClearStatement.executeUpdate();
+            var moveClearStatement = connection.prepareStatement("TRUNCATE TABLE game_move");
+            moveClearStatement.executeUpdate();
         } catch (SQLException exception) {
             throw new DataAccessException(exception.getMessage());
         }
     }
 
-    private ChessGame parseGameJSON(String gameJSON) {
-        return null;
+    private static int getPly(ChessGame game) {
+        return game instanceof ChessGameImpl chessGame ? chessGame.getPly() : 0;
+    }
+
+    /**
+     * Brings a game loaded from its last snapshot up to date with the moves logged after it
+     */
+    private static void replayMoves(Connection connection, int gameID, int snapshotPly, int ply, ChessGame game)
+            throws SQLException, DataAccessException {
+        if (!(game instanceof ChessGameImpl chessGame))
+            return;
+        chessGame.setPlayedMoves(snapshotPly, new int[0]);
+        if (ply == snapshotPly)
+            return;
+        var preparedStatement = connection.prepareStatement("SELECT move FROM game_move WHERE game_id=? AND ply>=? AND ply<? ORDER BY ply");
+        preparedStatement.setInt(1, gameID);
+        preparedStatement.setInt(2, snapshotPly);
+        preparedStatement.setInt(3, ply);
+        var rs = preparedStatement.executeQuery();
+        try {
+            while (rs.next())
+                chessGame.makeMove(ChessMoveImpl.decode(rs.getInt("move")));
+        } catch (InvalidMoveException exception) {
+            throw new DataAccessException("unreadable move log: " + exception.getMessage());
+        }
+        if (chessGame.getPly() != ply)
+            throw new DataAccessException("move log is missing moves for game " + gameID);
+    }
+
+    private static String encodeGame(ChessGame game) {
+        if (gameFormat == GameFormat.FEN)
+            return FenCodec.encode((ChessGameImpl) game);
+        return gameAdapter.toJson(game);
+    }
+
+    private static ChessGame decodeGame(String storedGame) throws DataAccessException {
+        try {
+            // JSON rows are objects; a FEN starts with the piece placement
+            if (storedGame.startsWith("{"))
+                return gameAdapter.fromJson(storedGame, ChessGameImpl.class);
+            return FenCodec.decode(storedGame);
+        } catch (RuntimeException exception) {
+            throw new DataAccessException("unreadable game: " + exception.getMessage());
+        }
     }
 }
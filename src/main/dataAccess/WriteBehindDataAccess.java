@@ -0,0 +1,345 @@
+package dataAccess;
+
+import chess.ChessGame;
+import chess.ChessGameImpl;
+import model.AuthToken;
+import model.Game;
+import model.GameSummary;
+import model.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps games that are being played in memory and writes their changes to the wrapped DataAccess in the
+ * background. After the first load a move doesn't touch the database at all; the latest state of each
+ * changed game is written at most {@code flushDelayMillis} later. Changes to what the game list filters on,
+ * the players, the name and whether the game is over, are written right away, so listing reads the database.
+ * <p>
+ * Writes are never reordered: a game's state is copied and queued under that game's lock, a state older
+ * than one already queued is refused, and every write to the database goes through one lock, so an older
+ * state can't land after a newer one. A failed write stays queued unless a newer state replaced it. Anything
+ * still queued is written by {@link #close()}, which the server calls on shutdown.
+ * <p>
+ * Callers still have to keep changes to one game from overlapping, since they share its ChessGame; the server
+ * runs them all through its per-game command executor.
+ */
+public class WriteBehindDataAccess implements DataAccess, AutoCloseable {
+    private static final long DEFAULT_FLUSH_DELAY_MILLIS = Long.getLong("chess.gameFlushMillis", 250);
+    private static final long DEFAULT_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    // Changes are made while holding the ResidentGame's lock, which is always taken before writeLock
+    private static class ResidentGame {
+        volatile Game game;
+        volatile long lastUsedNanos = System.nanoTime();
+        // The ply of the newest state queued or written
+        int latestPly;
+
+        ResidentGame(Game game) {
+            this.game = game;
+            latestPly = getPly(game);
+        }
+    }
+
+    private final DataAccess dataAccess;
+    private final long idleNanos;
+    private final ConcurrentHashMap<Integer, ResidentGame> residentGames = new ConcurrentHashMap<>();
+    // Copies of the newest state of each game that hasn't been written yet
+    private final ConcurrentHashMap<Integer, Game> pendingWrites = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final ScheduledExecutorService flusher;
+    // Games whose last write failed, so their next write is a retry; guarded by writeLock
+    private final HashSet<Integer> failedGames = new HashSet<>();
+    private final LongAdder failedWrites = new LongAdder();
+    private final LongAdder retriedWrites = new LongAdder();
+
+    public WriteBehindDataAccess(DataAccess dataAccess) {
+        this(dataAccess, DEFAULT_FLUSH_DELAY_MILLIS, DEFAULT_IDLE_MILLIS);
+    }
+
+    /**
+     * @param dataAccess where games are actually stored
+     * @param flushDelayMillis the longest a change waits before being written
+     * @param idleMillis how long a game with nothing to write stays in memory after it was last used
+     */
+    public WriteBehindDataAccess(DataAccess dataAccess, long flushDelayMillis, long idleMillis) {
+        this.dataAccess = dataAccess;
+        idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "game-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushAll, flushDelayMillis, flushDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void createUser(User user) throws DataAccessException {
+        dataAccess.createUser(user);
+    }
+
+    @Override
+    public User getUser(String username) throws DataAccessException {
+        return dataAccess.getUser(username);
+    }
+
+    @Override
+    public void destroyUser(User user) throws DataAccessException {
+        dataAccess.destroyUser(user);
+    }
+
+    @Override
+    public void createAuthToken(AuthToken authToken) throws DataAccessException {
+        dataAccess.createAuthToken(authToken);
+    }
+
+    @Override
+    public AuthToken getAuthToken(String authToken) throws DataAccessException {
+        return dataAccess.getAuthToken(authToken);
+    }
+
+    @Override
+    public void destroyAuth(String authToken) throws DataAccessException {
+        dataAccess.destroyAuth(authToken);
+    }
+
+    @Override
+    public Integer createGame(Game game) throws DataAccessException {
+        // Written straight away so the game has its ID before anything else can refer to it
+        return dataAccess.createGame(game);
+    }
+
+    @Override
+    public void updateGame(Game game) throws DataAccessException {
+        var resident = residentGames.get(game.gameID());
+        if (resident == null) {
+            // Not loaded, so write it through, which also checks that the game exists
+            dataAccess.updateGame(game);
+            residentGames.putIfAbsent(game.gameID(), new ResidentGame(game));
+            return;
+        }
+        synchronized (resident) {
+            updateResident(resident, game);
+        }
+    }
+
+    // Must hold the resident's lock
+    private void updateResident(ResidentGame resident, Game game) throws DataAccessException {
+        var gameID = game.gameID();
+        if (residentGames.get(gameID) != resident) {
+            // Evicted since it was looked up
+            dataAccess.updateGame(game);
+            return;
+        }
+        var ply = getPly(game);
+        if (ply < resident.latestPly)
+            throw new DataAccessException("game has moved on since it was read");
+
+        var current = resident.game;
+        // Lists filter on the players, the name and whether the game is over, so those go to the database right
+        // away; they change a handful of times per game
+        var writeNow = game.gameOver() || !Objects.equals(current.whiteUsername(), game.whiteUsername())
+                || !Objects.equals(current.blackUsername(), game.blackUsername())
+                || !Objects.equals(current.gameName(), game.gameName())
+                || current.gameOver() != game.gameOver();
+        resident.game = game;
+        resident.latestPly = ply;
+        resident.lastUsedNanos = System.nanoTime();
+        var snapshot = snapshot(game);
+        if (!writeNow) {
+            pendingWrites.put(gameID, snapshot);
+            return;
+        }
+        synchronized (writeLock) {
+            pendingWrites.remove(gameID);
+            write(snapshot);
+        }
+        dataAccess.flushGame(gameID);
+    }
+
+    @Override
+    public Collection<Game> getGames() throws DataAccessException {
+        var games = new ArrayList<Game>();
+        for (var game : dataAccess.getGames()) {
+            // Players may have come or gone since the stored row was last written
+            var resident = residentGames.get(game.gameID());
+            if (resident != null) {
+                var current = resident.game;
+                game = new Game(game.gameID(), current.whiteUsername(), current.blackUsername(),
+                        current.gameName(), game.game(), current.gameOver());
+            }
+            games.add(game);
+        }
+        return games;
+    }
+
+    @Override
+    public Collection<GameSummary> getGameSummaries(GameQuery query) throws DataAccessException {
+        // Everything the list filters on is written through, so the stored rows are already up to date
+        return dataAccess.getGameSummaries(query);
+    }
+
+    @Override
+    public Game getGame(Integer gameID) throws DataAccessException {
+        var resident = residentGames.get(gameID);
+        if (resident == null) {
+            var game = dataAccess.getGame(gameID);
+            if (game == null)
+                return null;
+            // Whoever loads it first wins, so every caller ends up sharing one ChessGame
+            resident = residentGames.computeIfAbsent(gameID, id -> new ResidentGame(game));
+        }
+        resident.lastUsedNanos = System.nanoTime();
+        return resident.game;
+    }
+
+    @Override
+    public void joinGame(User user, ChessGame.TeamColor userColor, Game game) throws DataAccessException {
+        var resident = residentGames.get(game.gameID());
+        if (resident == null) {
+            dataAccess.joinGame(user, userColor, game);
+            return;
+        }
+        // Checking the seat and taking it happen under the game's lock, so two joins can't both take it
+        synchronized (resident) {
+            var current = resident.game;
+            var seatHolder = userColor == ChessGame.TeamColor.WHITE ? current.whiteUsername() : current.blackUsername();
+            if (seatHolder != null)
+                throw new DataAccessException("already taken");
+            updateResident(resident, new Game(current.gameID(),
+                    userColor == ChessGame.TeamColor.WHITE ? user.username() : current.whiteUsername(),
+                    userColor == ChessGame.TeamColor.BLACK ? user.username() : current.blackUsername(),
+                    current.gameName(), current.game(), current.gameOver()));
+        }
+    }
+
+    @Override
+    public void destroyGame(Integer gameID) throws DataAccessException {
+        synchronized (writeLock) {
+            pendingWrites.remove(gameID);
+            failedGames.remove(gameID);
+            residentGames.remove(gameID);
+            dataAccess.destroyGame(gameID);
+        }
+    }
+
+    @Override
+    public void clearData() throws DataAccessException {
+        synchronized (writeLock) {
+            pendingWrites.clear();
+            failedGames.clear();
+            residentGames.clear();
+            dataAccess.clearData();
+        }
+    }
+
+    @Override
+    public void flushGame(Integer gameID) throws DataAccessException {
+        synchronized (writeLock) {
+            writePending(gameID);
+        }
+        dataAccess.flushGame(gameID);
+    }
+
+    /**
+     * Stops the background writer and writes everything still pending
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        flushAll();
+    }
+
+    /**
+     * @return the number of games held in memory
+     */
+    public int getResidentGames() {
+        return residentGames.size();
+    }
+
+    /**
+     * @return the number of games with changes that haven't been written yet
+     */
+    public int getPendingWrites() {
+        return pendingWrites.size();
+    }
+
+    /**
+     * @return the number of writes to the wrapped DataAccess that have failed; each one stays queued to retry
+     */
+    public long getFailedWrites() {
+        return failedWrites.sum();
+    }
+
+    /**
+     * @return the number of writes made for a game whose previous write failed
+     */
+    public long getRetriedWrites() {
+        return retriedWrites.sum();
+    }
+
+    private void flushAll() {
+        synchronized (writeLock) {
+            for (var gameID : pendingWrites.keySet()) {
+                try {
+                    writePending(gameID);
+                } catch (DataAccessException ignored) {
+                    // Counted by write and still queued, so the next flush retries it
+                }
+            }
+        }
+        // Outside writeLock, since a resident's lock is always taken first
+        var now = System.nanoTime();
+        residentGames.forEach((gameID, resident) -> {
+            synchronized (resident) {
+                if (now - resident.lastUsedNanos > idleNanos && !pendingWrites.containsKey(gameID))
+                    residentGames.remove(gameID, resident);
+            }
+        });
+    }
+
+    // Must hold writeLock
+    private void writePending(Integer gameID) throws DataAccessException {
+        var game = pendingWrites.remove(gameID);
+        if (game != null)
+            write(game);
+    }
+
+    // Must hold writeLock
+    private void write(Game game) throws DataAccessException {
+        var gameID = game.gameID();
+        if (failedGames.remove(gameID))
+            retriedWrites.increment();
+        try {
+            dataAccess.updateGame(game);
+        } catch (DataAccessException exception) {
+            // Retry later unless a newer state has been queued in the meantime
+            failedWrites.increment();
+            failedGames.add(gameID);
+            pendingWrites.putIfAbsent(gameID, game);
+            throw exception;
+        }
+    }
+
+    /**
+     * Copies a game so the background writer never reads a board that a move is changing, which is far
+     * cheaper than the database round trip it replaces
+     */
+    private static Game snapshot(Game game) {
+        if (!(game.game() instanceof ChessGameImpl chessGame))
+            return game;
+        return new Game(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(),
+                chessGame.copy(), game.gameOver());
+    }
+
+    private static int getPly(Game game) {
+        return game.game() instanceof ChessGameImpl chessGame ? chessGame.getPly() : 0;
+    }
+}
@@ -7,6 +7,8 @@ import spark.Request;
 import spark.Response;
 import webRequest.CreateGameRequest;
 import webRequest.JoinGameRequest;
+import webRequest.ListGamesRequest;
+import webResult.ListGamesResult;
 
 public class GameHandler {
 
@@ -20,12 +22,53 @@ public class GameHandler {
 
     public Object handleListGames(Request request, Response response) {
         var authToken = request.headers("authorization");
-        var listGamesResponse = GameService.getInstance().listGames(authToken);
+        ListGamesRequest listGamesRequest;
+        try {
+            listGamesRequest = new ListGamesRequest(
+                    parseInteger(request.queryParams("cursor")),
+                    parseInteger(request.queryParams("limit")),
+                    parseBoolean(request.queryParams("openSeat")),
+                    request.queryParams("player"),
+                    parseBoolean(request.queryParams("gameOver")),
+                    request.queryParams("namePrefix"));
+        } catch (NumberFormatException exception) {
+            response.status(400);
+            return new Gson().toJson(new ListGamesResult(null, "Error: bad request", false, null));
+        }
+        // Read before listing, so a change made during the listing gets a new ETag on the next poll
+        var lobbyETag = GameService.getInstance().getLobbyETag();
+        if (eTagMatches(request.headers("If-None-Match"), lobbyETag)
+                && GameService.getInstance().isAuthorized(authToken)) {
+            response.status(304);
+            response.header("ETag", lobbyETag);
+            return "";
+        }
+        var listGamesResponse = GameService.getInstance().listGames(listGamesRequest, authToken);
         if (listGamesResponse.message() != null && listGamesResponse.message().equals("Error: unauthorized"))
             response.status(401);
+        if (Boolean.TRUE.equals(listGamesResponse.success()))
+            response.header("ETag", lobbyETag);
         return new Gson().toJson(listGamesResponse);
     }
 
+    // If-None-Match may list several ETags
+    private static boolean eTagMatches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null)
+            return false;
+        for (var candidate : ifNoneMatch.split(","))
+            if (candidate.trim().equals(eTag))
+                return true;
+        return false;
+    }
+
+    private static Integer parseInteger(String value) {
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    private static Boolean parseBoolean(String value) {
+        return value == null ? null : Boolean.valueOf(value);
+    }
+
     public Object handleCreateGame(Request request, Response response) {
         var authToken = request.headers("authorization");
         var createGameRequest = new Gson().fromJson(request.body(), CreateGameRequest.class);
@@ -0,0 +1,62 @@
+package handler;
+
+import chess.ChessGameImpl;
+import com.google.gson.Gson;
+import dataAccess.SQLDataAccess;
+import dataAccess.WriteBehindDataAccess;
+import server.websocket.WebSocketHandler;
+import spark.Request;
+import spark.Response;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports the server's internal counters as JSON for monitoring
+ */
+public class MetricsHandler {
+
+    private static final MetricsHandler metricsHandler = new MetricsHandler();
+
+    public static MetricsHandler getInstance() {
+        return metricsHandler;
+    }
+
+    private WriteBehindDataAccess gameStore;
+    private WebSocketHandler webSocketHandler;
+
+    /**
+     * @param gameStore the write-behind store in front of MySQL, or null if the server keeps its data in memory
+     *                  and so has no connection pool or game writes to report on
+     * @param webSocketHandler the handler whose outgoing message queues to report on
+     */
+    public void init(WriteBehindDataAccess gameStore, WebSocketHandler webSocketHandler) {
+        this.gameStore = gameStore;
+        this.webSocketHandler = webSocketHandler;
+    }
+
+    public Object handleMetrics(Request request, Response response) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        if (gameStore != null) {
+            metrics.put("databasePool", SQLDataAccess.getPoolMetrics());
+            metrics.put("gameWrites", Map.of(
+                    "residentGames", gameStore.getResidentGames(),
+                    "pendingWrites", gameStore.getPendingWrites(),
+                    "failedWrites", gameStore.getFailedWrites(),
+                    "retriedWrites", gameStore.getRetriedWrites()));
+        }
+        if (webSocketHandler != null) {
+            metrics.put("webSocketSends", webSocketHandler.getSendMetrics());
+            metrics.put("webSocketCommands", Map.of("failedCommands", webSocketHandler.getFailedCommands()));
+        }
+        var positionCache = ChessGameImpl.getPositionCache();
+        if (positionCache != null)
+            metrics.put("positionCache", Map.of(
+                    "size", positionCache.size(),
+                    "hits", positionCache.getHitCount(),
+                    "misses", positionCache.getMissCount(),
+                    "evictions", positionCache.getEvictionCount()));
+        response.type("application/json");
+        return new Gson().toJson(metrics);
+    }
+}
@@ -1,11 +1,18 @@
 package server;
 
+import chess.ChessGameImpl;
+import chess.PositionCache;
 import com.google.gson.Gson;
+import dataAccess.CachingDataAccess;
+import dataAccess.DataAccess;
 import dataAccess.MemoryDataAccess;
 import dataAccess.SQLDataAccess;
+import dataAccess.WriteBehindDataAccess;
 import handler.ApplicationHandler;
 import handler.GameHandler;
+import handler.MetricsHandler;
 import handler.UserHandler;
+import server.websocket.GameCommandExecutor;
 import server.websocket.WebSocketHandler;
 import service.ApplicationService;
 import service.GameService;
@@ -15,17 +22,36 @@ import spark.*;
 import java.util.Map;
 
 public class Server {
+    // About 20 MB of positions at ~30 moves each
+    private static final int POSITION_CACHE_SIZE = 65536;
     private WebSocketHandler webSocketHandler;
     public static void main(String[] args) {
         new Server().run();
     }
 
     private void run() {
-        var dataAccess = new SQLDataAccess();
+        DataAccess dataAccess;
+        // -Dchess.dataAccess=memory runs without MySQL, for load tests and tournaments that don't need to persist
+        var useMemory = "memory".equalsIgnoreCase(System.getProperty("chess.dataAccess"));
+        var gameStore = useMemory ? null : new WriteBehindDataAccess(new SQLDataAccess());
+        if (useMemory) {
+            dataAccess = new MemoryDataAccess();
+        } else {
+            // The pending game writes need the pool, so it closes after them
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                gameStore.close();
+                SQLDataAccess.shutdown();
+            }, "game-store-shutdown"));
+            dataAccess = new CachingDataAccess(gameStore);
+        }
+        ChessGameImpl.setPositionCache(new PositionCache(POSITION_CACHE_SIZE));
         // init data
         UserService.getInstance().init(dataAccess);
-        GameService.getInstance().init(dataAccess);
-        webSocketHandler = new WebSocketHandler(dataAccess);
+        // Joins over HTTP and commands over WebSocket change the same games, so they take turns the same way
+        var commandExecutor = new GameCommandExecutor();
+        GameService.getInstance().init(dataAccess, commandExecutor);
+        webSocketHandler = new WebSocketHandler(dataAccess, commandExecutor);
+        MetricsHandler.getInstance().init(gameStore, webSocketHandler);
         ApplicationService.getInstance().init(dataAccess, webSocketHandler);
 
         // Setup spark server
@@ -45,6 +71,8 @@ public class Server {
         Spark.post("/game", GameHandler.getInstance()::handleCreateGame);
         Spark.put("/game", GameHandler.getInstance()::handleJoinGame);
 
+        Spark.get("/metrics", MetricsHandler.getInstance()::handleMetrics);
+
         Spark.notFound((req, res) -> {
             var msg = String.format("[%s] %s not found", req.requestMethod(), req.pathInfo());
             return errorHandler(new Exception(msg), req, res);
@@ -1,46 +1,320 @@
 package server.websocket;
 
-import chess.ChessGameImpl;
-import com.google.gson.Gson;
+import chess.ChessGame;
 import model.Game;
 import org.eclipse.jetty.websocket.api.Session;
+import webSocketMessages.BinaryMessageCodec;
 import webSocketMessages.serverMessages.ServerMessage;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Tracks which sessions are in which games and sends them messages. Membership changes are rare next to
+ * broadcasts, so each game's members are a copy-on-write set that broadcasts can iterate without locking while
+ * sessions come and go. A reverse index from session to games lets a closed session be dropped from all of its
+ * games at once. Every message goes through the session's {@link SessionSender}, so sending never waits on the
+ * network.
+ */
 public class ConnectionManager {
-    public ConcurrentHashMap<Integer, ArrayList<Session>> gameMembers = new ConcurrentHashMap<>();
-    private static final Gson gameAdapter = ChessGameImpl.getGsonAdapter();
+    private final ConcurrentHashMap<Integer, Set<Session>> gameMembers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Session, Set<Integer>> sessionGames = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Session, SessionSender> senders = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Session, SessionOptions> sessionOptions = new ConcurrentHashMap<>();
+    private final LongAdder coalescedLoadGames = new LongAdder();
+    private final LongAdder slowConsumerDisconnects = new LongAdder();
+
+    /**
+     * What a session asked for when it joined
+     * @param batchMessages get each command's messages as one BATCH frame
+     * @param moveDeltas get MOVE_APPLIED instead of a full LOAD_GAME after each move
+     * @param binary get binary frames from {@link BinaryMessageCodec} instead of JSON text
+     */
+    public record SessionOptions(boolean batchMessages, boolean moveDeltas, boolean binary) {
+        public static final SessionOptions DEFAULT = new SessionOptions(false, false, false);
+    }
+
+    /**
+     * A point-in-time view of the outgoing message queues
+     * @param sessions sessions that have been sent messages
+     * @param queuedMessages messages waiting across every session
+     * @param maxQueueDepth messages waiting for the most backed up session
+     * @param coalescedLoadGames LOAD_GAMEs dropped because a newer one for the same game replaced them
+     * @param slowConsumerDisconnects sessions closed because their queue filled up
+     */
+    public record SendMetrics(int sessions, long queuedMessages, int maxQueueDepth, long coalescedLoadGames,
+                              long slowConsumerDisconnects) { }
+
+    /**
+     * The last LOAD_GAME sent for a game, reused until the position changes
+     */
+    private record GameSnapshot(long positionHash, EncodedMessage loadGameMessage) { }
+    private final ConcurrentHashMap<Integer, GameSnapshot> loadGameSnapshots = new ConcurrentHashMap<>();
 
     public void add(Integer gameID, Session session) {
-        if (!gameMembers.containsKey(gameID))
-            gameMembers.put(gameID, new ArrayList<>());
-        gameMembers.get(gameID).add(session);
+        // compute() keeps this atomic with a remove() that would otherwise drop a set just as it's joined
+        gameMembers.compute(gameID, (id, members) -> {
+            if (members == null)
+                members = new CopyOnWriteArraySet<>();
+            members.add(session);
+            return members;
+        });
+        sessionGames.compute(session, (s, games) -> {
+            if (games == null)
+                games = ConcurrentHashMap.newKeySet();
+            games.add(gameID);
+            return games;
+        });
     }
 
     public void remove(Integer gameID, Session session) {
-        if (gameMembers.containsKey(gameID)) {
-            var members = gameMembers.get(gameID);
+        removeMember(gameID, session);
+        sessionGames.computeIfPresent(session, (s, games) -> {
+            games.remove(gameID);
+            return games.isEmpty() ? null : games;
+        });
+    }
+
+    /**
+     * Removes a session from every game it's in, for when it closes
+     * @param session the session to remove
+     */
+    public void removeSession(Session session) {
+        senders.remove(session);
+        sessionOptions.remove(session);
+        var games = sessionGames.remove(session);
+        if (games != null)
+            for (var gameID : games)
+                removeMember(gameID, session);
+    }
+
+    private void removeMember(Integer gameID, Session session) {
+        gameMembers.computeIfPresent(gameID, (id, members) -> {
             members.remove(session);
+            if (!members.isEmpty())
+                return members;
+            // Nobody is watching, so there's no one to reuse the snapshot for
+            loadGameSnapshots.remove(gameID);
+            return null;
+        });
+    }
+
+    /**
+     * @return the number of games with at least one session in them
+     */
+    public int getGameCount() {
+        return gameMembers.size();
+    }
+
+    /**
+     * @return the number of sessions in at least one game
+     */
+    public int getSessionCount() {
+        return sessionGames.size();
+    }
+
+    /**
+     * @return the current depth of the outgoing queues and how often the slow consumer policy has kicked in
+     */
+    public SendMetrics getSendMetrics() {
+        long queuedMessages = 0;
+        int maxQueueDepth = 0;
+        for (var sender : senders.values()) {
+            var depth = sender.getQueueDepth();
+            queuedMessages += depth;
+            maxQueueDepth = Math.max(maxQueueDepth, depth);
         }
+        return new SendMetrics(senders.size(), queuedMessages, maxQueueDepth, coalescedLoadGames.sum(),
+                slowConsumerDisconnects.sum());
+    }
+
+    /**
+     * Queues a message for one session, in the format it asked for; returns right away
+     * @param session the session to send to
+     * @param message the message to send
+     */
+    public void send(Session session, ServerMessage message) {
+        send(session, getOptions(session), new EncodedMessage(message), null);
+    }
+
+    /**
+     * Queues a game's LOAD_GAME for one session, replacing one for the same game that hasn't gone out yet
+     */
+    public void sendLoadGame(Session session, Integer gameID, ChessGame game) {
+        send(session, getOptions(session), getLoadGameMessage(gameID, game), gameID);
+    }
+
+    private void send(Session session, SessionOptions options, EncodedMessage message, Integer loadGameID) {
+        if (options.binary())
+            senderFor(session).send(message.getBinary(), loadGameID);
+        else
+            senderFor(session).send(message.getJson(), loadGameID);
+    }
+
+    private SessionOptions getOptions(Session session) {
+        return sessionOptions.getOrDefault(session, SessionOptions.DEFAULT);
+    }
+
+    /**
+     * Sets how messages are sent to a session
+     */
+    public void setOptions(Session session, SessionOptions options) {
+        sessionOptions.put(session, options);
+    }
+
+    /**
+     * Starts collecting messages for everyone in a game, to be sent together
+     * @param gameID the game the messages are for
+     * @return an empty batch, sent with {@link MessageBatch#send()}
+     */
+    public MessageBatch startBatch(Integer gameID) {
+        return new MessageBatch(this, gameID);
+    }
+
+    private SessionSender senderFor(Session session) {
+        return senders.computeIfAbsent(session,
+                s -> new SessionSender(s, coalescedLoadGames, slowConsumerDisconnects));
     }
 
     public void clear() {
-        for (ArrayList<Session> members : gameMembers.values())
-            for (Session s : members)
-                if (s.isOpen())
-                    s.close();
-        gameMembers = new ConcurrentHashMap<>();
-    }
-
-    public void broadcastGameMessage(Game game, ServerMessage message, Session exceptSession) throws IOException {
-        var members = gameMembers.get(game.gameID());
-        if (members != null) {
-            for (var s : members)
-                if (!s.equals(exceptSession))
-                    s.getRemote().sendString(gameAdapter.toJson(message));
+        for (Session s : sessionGames.keySet())
+            if (s.isOpen())
+                s.close();
+        gameMembers.clear();
+        sessionGames.clear();
+        senders.clear();
+        sessionOptions.clear();
+        loadGameSnapshots.clear();
+    }
+
+    /**
+     * @return the version of a game's state sent with LOAD_GAME. It is derived from the position, so any two
+     * states with the same version look the same to a client
+     */
+    public static String getGameVersion(ChessGame game) {
+        return Long.toHexString(game.getPositionHash());
+    }
+
+    /**
+     * @return a LOAD_GAME message with no game, telling a client its copy with this version is current
+     */
+    public static ServerMessage getGameCurrentMessage(String gameVersion) {
+        ServerMessage currentMessage = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME);
+        currentMessage.setGameVersion(gameVersion);
+        return currentMessage;
+    }
+
+    /**
+     * Gets the LOAD_GAME message for a game, only serializing it again if the position has changed since the
+     * last time it was sent
+     * @param gameID the ID of the game
+     * @param game the current state of the game
+     * @return a LOAD_GAME message holding the game
+     */
+    EncodedMessage getLoadGameMessage(Integer gameID, ChessGame game) {
+        var positionHash = game.getPositionHash();
+        var snapshot = loadGameSnapshots.get(gameID);
+        if (snapshot == null || snapshot.positionHash() != positionHash) {
+            ServerMessage loadMessage = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME);
+            loadMessage.setGame(game);
+            loadMessage.setGameVersion(getGameVersion(game));
+            snapshot = new GameSnapshot(positionHash, new EncodedMessage(loadMessage));
+            loadGameSnapshots.put(gameID, snapshot);
+        }
+        return snapshot.loadGameMessage();
+    }
+
+    public void broadcastLoadGame(Game game, Session exceptSession) {
+        broadcast(game.gameID(), getLoadGameMessage(game.gameID(), game.game()), game.gameID(), exceptSession);
+    }
+
+    public void broadcastGameMessage(Game game, ServerMessage message, Session exceptSession) {
+        // Serialized once per format and the same frame sent to every member
+        broadcast(game.gameID(), new EncodedMessage(message), null, exceptSession);
+    }
+
+    void broadcastBatch(MessageBatch batch) {
+        var members = gameMembers.get(batch.getGameID());
+        if (members == null)
+            return;
+        var parts = batch.getParts();
+        // Most members get every part, so those frames are only built once per format, with and without deltas
+        var fullJsonBatches = new String[2];
+        var fullBinaryBatches = new byte[2][];
+        for (var s : members) {
+            if (!s.isOpen()) {
+                removeSession(s);
+                continue;
+            }
+            var options = getOptions(s);
+            if (!options.batchMessages()) {
+                for (var part : parts)
+                    if (part.isFor(s))
+                        send(s, options, part.messageFor(options),
+                                part.isLoadGameFor(options) ? batch.getGameID() : null);
+                continue;
+            }
+            var included = new ArrayList<EncodedMessage>(parts.size());
+            for (var part : parts)
+                if (part.isFor(s))
+                    included.add(part.messageFor(options));
+            if (included.isEmpty())
+                continue;
+            var everyPart = included.size() == parts.size();
+            var deltas = options.moveDeltas() ? 1 : 0;
+            if (options.binary()) {
+                var frame = everyPart ? fullBinaryBatches[deltas] : null;
+                if (frame == null) {
+                    frame = getBatchBinary(included);
+                    if (everyPart)
+                        fullBinaryBatches[deltas] = frame;
+                }
+                senderFor(s).send(frame, null);
+            } else {
+                var frame = everyPart ? fullJsonBatches[deltas] : null;
+                if (frame == null) {
+                    frame = getBatchJson(included);
+                    if (everyPart)
+                        fullJsonBatches[deltas] = frame;
+                }
+                senderFor(s).send(frame, null);
+            }
+        }
+    }
+
+    // The messages are already serialized, so they're spliced in rather than parsed and serialized again
+    private static String getBatchJson(List<EncodedMessage> messages) {
+        var messageJson = new ArrayList<String>(messages.size());
+        for (var message : messages)
+            messageJson.add(message.getJson());
+        return "{\"serverMessageType\":\"" + ServerMessage.ServerMessageType.BATCH + "\",\"messages\":["
+                + String.join(",", messageJson) + "]}";
+    }
+
+    private static byte[] getBatchBinary(List<EncodedMessage> messages) {
+        var messageBinary = new ArrayList<byte[]>(messages.size());
+        for (var message : messages)
+            messageBinary.add(message.getBinary());
+        return BinaryMessageCodec.encodeBatch(messageBinary);
+    }
+
+    private void broadcast(Integer gameID, EncodedMessage message, Integer loadGameID, Session exceptSession) {
+        var members = gameMembers.get(gameID);
+        if (members == null)
+            return;
+        for (var s : members) {
+            if (s.equals(exceptSession))
+                continue;
+            if (!s.isOpen()) {
+                // Closed without a close event reaching us, so clean it up here
+                removeSession(s);
+                continue;
+            }
+            send(s, getOptions(s), message, loadGameID);
         }
     }
 }
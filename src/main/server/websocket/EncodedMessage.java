@@ -0,0 +1,40 @@
+package server.websocket;
+
+import chess.ChessGameImpl;
+import com.google.gson.Gson;
+import webSocketMessages.BinaryMessageCodec;
+import webSocketMessages.serverMessages.ServerMessage;
+
+/**
+ * A message for one or more sessions, serialized at most once per format however many sessions get it.
+ * Most messages are only serialized the first time a format is asked for. A message holding a game is
+ * serialized in both formats right away, because the game keeps changing after the message is made.
+ */
+final class EncodedMessage {
+    private static final Gson gameAdapter = ChessGameImpl.getGsonAdapter();
+
+    private final ServerMessage message;
+    // Guarded by this
+    private String json;
+    private byte[] binary;
+
+    EncodedMessage(ServerMessage message) {
+        this.message = message;
+        if (message.getGame() != null) {
+            json = gameAdapter.toJson(message);
+            binary = BinaryMessageCodec.encodeMessage(message);
+        }
+    }
+
+    synchronized String getJson() {
+        if (json == null)
+            json = gameAdapter.toJson(message);
+        return json;
+    }
+
+    synchronized byte[] getBinary() {
+        if (binary == null)
+            binary = BinaryMessageCodec.encodeMessage(message);
+        return binary;
+    }
+}
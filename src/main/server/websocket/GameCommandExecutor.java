@@ -0,0 +1,152 @@
+package server.websocket;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the commands for each game one at a time and in the order they arrived, while commands for different
+ * games run in parallel on a shared pool of worker threads. Each game with pending commands has a mailbox
+ * that is scheduled on the pool at most once; a game with no pending commands has no mailbox at all.
+ */
+public class GameCommandExecutor {
+    /**
+     * How many commands one game runs before giving its worker thread to another game
+     */
+    private static final int COMMANDS_PER_TURN = 32;
+
+    private final ExecutorService workers;
+    // A mailbox is only read or changed inside compute() on its own key, which locks it against other threads
+    private final ConcurrentHashMap<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final LongAdder failedCommands = new LongAdder();
+
+    public GameCommandExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public GameCommandExecutor(int threads) {
+        var threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "game-commands-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a command behind any commands already waiting for the same game
+     * @param gameID the game the command changes, or null to run it right away on the calling thread
+     * @param command the command to run
+     */
+    public void execute(Integer gameID, Runnable command) {
+        if (gameID == null) {
+            command.run();
+            return;
+        }
+        mailboxes.compute(gameID, (id, mailbox) -> {
+            if (mailbox == null)
+                mailbox = new Mailbox(id);
+            mailbox.commands.add(command);
+            if (!mailbox.scheduled) {
+                mailbox.scheduled = true;
+                workers.execute(mailbox);
+            }
+            return mailbox;
+        });
+    }
+
+    /**
+     * Runs a command in its game's turn, like {@link #execute}, and waits for it. For threads outside the
+     * executor, such as HTTP requests, that change a game; calling it from a command would wait forever.
+     * @param gameID the game the command changes, or null to run it right away on the calling thread
+     * @param command the command to run
+     * @return what the command returned
+     * @throws Exception what the command threw
+     */
+    public <T> T call(Integer gameID, Callable<T> command) throws Exception {
+        var task = new FutureTask<>(command);
+        execute(gameID, task);
+        try {
+            return task.get();
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof Exception cause)
+                throw cause;
+            throw exception;
+        }
+    }
+
+    /**
+     * @return the number of games that currently have commands waiting or running
+     */
+    public int getActiveGames() {
+        return mailboxes.size();
+    }
+
+    /**
+     * @return the number of commands that threw out to the executor instead of handling their own failure
+     */
+    public long getFailedCommands() {
+        return failedCommands.sum();
+    }
+
+    /**
+     * Stops accepting commands; commands already queued still run
+     */
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private class Mailbox implements Runnable {
+        private final Integer gameID;
+        private final ArrayDeque<Runnable> commands = new ArrayDeque<>();
+        private boolean scheduled;
+
+        Mailbox(Integer gameID) {
+            this.gameID = gameID;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < COMMANDS_PER_TURN; i++) {
+                var command = nextCommand();
+                if (command == null)
+                    return;
+                try {
+                    command.run();
+                } catch (RuntimeException exception) {
+                    // One failed command shouldn't stop the rest of the game's commands. Commands that have
+                    // someone to tell, like WebSocket commands and call(), report their own failures first.
+                    failedCommands.increment();
+                }
+            }
+            // Still more to do, so go to the back of the pool's queue to give other games a turn
+            mailboxes.compute(gameID, (id, mailbox) -> {
+                if (commands.isEmpty()) {
+                    scheduled = false;
+                    return null;
+                }
+                workers.execute(this);
+                return this;
+            });
+        }
+
+        private Runnable nextCommand() {
+            var next = new Runnable[1];
+            mailboxes.compute(gameID, (id, mailbox) -> {
+                next[0] = commands.poll();
+                if (next[0] == null) {
+                    scheduled = false;
+                    return null;
+                }
+                return this;
+            });
+            return next[0];
+        }
+    }
+}
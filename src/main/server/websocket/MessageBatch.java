@@ -0,0 +1,88 @@
+package server.websocket;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessMoveImpl;
+import org.eclipse.jetty.websocket.api.Session;
+import webSocketMessages.serverMessages.ServerMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The messages one command sends to everyone in a game, collected so they can go out together. Sessions that
+ * asked for batches get them as a single BATCH frame; everyone else gets them one at a time, in the same order.
+ * Start one with {@link ConnectionManager#startBatch(Integer)}.
+ */
+public class MessageBatch {
+    /**
+     * @param message the message
+     * @param moveDelta the message to send instead to sessions that take move deltas, or null to send message
+     * @param loadGame whether message is the game's LOAD_GAME
+     * @param exceptSession a session the message isn't for, or null if it's for everyone
+     */
+    record Part(EncodedMessage message, EncodedMessage moveDelta, boolean loadGame, Session exceptSession) {
+        boolean isFor(Session session) {
+            return !session.equals(exceptSession);
+        }
+
+        EncodedMessage messageFor(ConnectionManager.SessionOptions options) {
+            return options.moveDeltas() && moveDelta != null ? moveDelta : message;
+        }
+
+        boolean isLoadGameFor(ConnectionManager.SessionOptions options) {
+            return loadGame && (!options.moveDeltas() || moveDelta == null);
+        }
+    }
+
+    private final ConnectionManager connections;
+    private final Integer gameID;
+    private final List<Part> parts = new ArrayList<>();
+
+    MessageBatch(ConnectionManager connections, Integer gameID) {
+        this.connections = connections;
+        this.gameID = gameID;
+    }
+
+    Integer getGameID() {
+        return gameID;
+    }
+
+    List<Part> getParts() {
+        return parts;
+    }
+
+    /**
+     * Adds the game's new state after a move, for everyone in the game. Sessions that take move deltas get a
+     * MOVE_APPLIED with just the move; the rest get a LOAD_GAME with the whole game.
+     * @param game the game after the move
+     * @param move the move that was made
+     * @param checkState whether the move left the team to move in check, checkmate or stalemate
+     */
+    public void addMoveApplied(ChessGame game, ChessMove move, ServerMessage.CheckState checkState) {
+        ServerMessage moveMessage = new ServerMessage(ServerMessage.ServerMessageType.MOVE_APPLIED);
+        moveMessage.setMove(ChessMoveImpl.encode(move));
+        moveMessage.setTeamTurn(game.getTeamTurn());
+        moveMessage.setCheckState(checkState);
+        moveMessage.setGameVersion(ConnectionManager.getGameVersion(game));
+        parts.add(new Part(connections.getLoadGameMessage(gameID, game), new EncodedMessage(moveMessage),
+                true, null));
+    }
+
+    /**
+     * Adds a message for everyone in the game except one session
+     * @param message the message to send
+     * @param exceptSession the session to leave out, or null to send it to everyone
+     */
+    public void addMessage(ServerMessage message, Session exceptSession) {
+        parts.add(new Part(new EncodedMessage(message), null, false, exceptSession));
+    }
+
+    /**
+     * Sends everything added so far
+     */
+    public void send() {
+        if (!parts.isEmpty())
+            connections.broadcastBatch(this);
+    }
+}
@@ -0,0 +1,138 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends messages to one session without blocking the caller. Messages wait in a bounded queue and go out
+ * one at a time as the previous write completes, so a slow connection only holds up its own messages.
+ * <p>
+ * A LOAD_GAME holds the whole game, so a newer one makes any older one for the same game still waiting in
+ * the queue pointless; the older one is dropped. If the queue still fills up, the client isn't keeping up
+ * at all and is disconnected.
+ */
+class SessionSender implements WriteCallback {
+    /**
+     * How many messages may wait for a session before it counts as too slow
+     */
+    static final int MAX_QUEUED_MESSAGES = 64;
+    // 1008, policy violation
+    private static final int SLOW_CONSUMER_STATUS = 1008;
+
+    // Exactly one of text and binary is set
+    private record Outgoing(String text, byte[] binary, Integer loadGameID) { }
+
+    private final Session session;
+    private final LongAdder coalescedLoadGames;
+    private final LongAdder slowConsumerDisconnects;
+    // Guarded by this
+    private final ArrayDeque<Outgoing> queue = new ArrayDeque<>();
+    private boolean writing;
+    private boolean closed;
+
+    SessionSender(Session session, LongAdder coalescedLoadGames, LongAdder slowConsumerDisconnects) {
+        this.session = session;
+        this.coalescedLoadGames = coalescedLoadGames;
+        this.slowConsumerDisconnects = slowConsumerDisconnects;
+    }
+
+    /**
+     * Queues a text message for the session
+     * @param text the message text
+     * @param loadGameID the game a LOAD_GAME message holds, so it can replace an older one, or null for others
+     */
+    void send(String text, Integer loadGameID) {
+        send(new Outgoing(text, null, loadGameID));
+    }
+
+    /**
+     * Queues a binary message for the session
+     * @see #send(String, Integer)
+     */
+    void send(byte[] binary, Integer loadGameID) {
+        send(new Outgoing(null, binary, loadGameID));
+    }
+
+    private void send(Outgoing outgoing) {
+        var loadGameID = outgoing.loadGameID();
+        boolean tooSlow = false;
+        synchronized (this) {
+            if (closed)
+                return;
+            if (loadGameID != null && removeQueuedLoadGame(loadGameID))
+                coalescedLoadGames.increment();
+            if (queue.size() >= MAX_QUEUED_MESSAGES) {
+                closed = true;
+                tooSlow = true;
+                queue.clear();
+            } else {
+                queue.add(outgoing);
+                if (writing)
+                    return;
+                writing = true;
+            }
+        }
+        if (tooSlow) {
+            slowConsumerDisconnects.increment();
+            session.close(SLOW_CONSUMER_STATUS, "Too slow to keep up with the game");
+            return;
+        }
+        writeNext();
+    }
+
+    /**
+     * @return the number of messages waiting, not counting one being written
+     */
+    synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    // Drops a waiting LOAD_GAME for the game; the newer one then goes on the end, after every message before it
+    private boolean removeQueuedLoadGame(Integer loadGameID) {
+        var iterator = queue.descendingIterator();
+        while (iterator.hasNext()) {
+            if (loadGameID.equals(iterator.next().loadGameID())) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeNext() {
+        Outgoing next;
+        synchronized (this) {
+            next = queue.poll();
+            if (next == null || closed) {
+                writing = false;
+                return;
+            }
+        }
+        try {
+            if (next.text() != null)
+                session.getRemote().sendString(next.text(), this);
+            else
+                session.getRemote().sendBytes(ByteBuffer.wrap(next.binary()), this);
+        } catch (RuntimeException exception) {
+            writeFailed(exception);
+        }
+    }
+
+    @Override
+    public void writeSuccess() {
+        writeNext();
+    }
+
+    @Override
+    public void writeFailed(Throwable cause) {
+        synchronized (this) {
+            closed = true;
+            writing = false;
+            queue.clear();
+        }
+    }
+}
@@ -9,13 +9,17 @@ import dataAccess.DataAccess;
 import dataAccess.DataAccessException;
 import model.Game;
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
 import server.Server;
+import service.GameService;
+import webSocketMessages.BinaryMessageCodec;
 import webSocketMessages.serverMessages.ServerMessage;
 import webSocketMessages.userCommands.UserGameCommand;
 
-import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static chess.ChessGame.TeamColor.BLACK;
 import static chess.ChessGame.TeamColor.WHITE;
@@ -26,39 +30,115 @@ public class WebSocketHandler {
     private final DataAccess dataAccess;
     private static final Gson gameAdapter = ChessGameImpl.getGsonAdapter();
     private final ConnectionManager connections = new ConnectionManager();
+    private final GameCommandExecutor commandExecutor;
+    // The auth tokens each binary session has interned so far
+    private final ConcurrentHashMap<Session, BinaryMessageCodec> binaryCodecs = new ConcurrentHashMap<>();
+    private static final ConnectionManager.SessionOptions BINARY_OPTIONS =
+            new ConnectionManager.SessionOptions(false, false, true);
 
     public WebSocketHandler(DataAccess dataAccess) {
+        this(dataAccess, new GameCommandExecutor());
+    }
+
+    /**
+     * @param commandExecutor runs the commands for each game in turn; share it with anything else that changes games
+     */
+    public WebSocketHandler(DataAccess dataAccess, GameCommandExecutor commandExecutor) {
         this.dataAccess = dataAccess;
+        this.commandExecutor = commandExecutor;
     }
 
     @OnWebSocketMessage
-    public void onMessage(Session session, String message) throws IOException {
+    public void onMessage(Session session, String message) {
         UserGameCommand userCommand = gameAdapter.fromJson(message, UserGameCommand.class);
+        executeCommand(session, userCommand, false);
+    }
+
+    /**
+     * Takes commands in the {@link BinaryMessageCodec} format. A session that sends one gets binary frames back
+     * from then on. A frame that can't be read gets an ERROR back.
+     */
+    @OnWebSocketMessage
+    public void onMessage(Session session, byte[] payload, int offset, int length) {
+        // Jetty delivers a session's messages one at a time, so its codec is never used by two threads at once
+        var codec = binaryCodecs.computeIfAbsent(session, s -> {
+            connections.setOptions(s, BINARY_OPTIONS);
+            return new BinaryMessageCodec();
+        });
+        UserGameCommand userCommand;
+        try {
+            userCommand = codec.decodeCommand(ByteBuffer.wrap(payload, offset, length));
+        } catch (IllegalArgumentException exception) {
+            ServerMessage errorMessage = new ServerMessage(ServerMessage.ServerMessageType.ERROR);
+            errorMessage.setErrorMessage(exception.getMessage());
+            connections.send(session, errorMessage);
+            return;
+        }
+        executeCommand(session, userCommand, true);
+    }
+
+    private void executeCommand(Session session, UserGameCommand userCommand, boolean binary) {
+        // Every command reads, changes, and writes back its game, so commands for a game must not overlap
+        commandExecutor.execute(userCommand.getGameID(), () -> runCommand(session, userCommand, binary));
+    }
+
+    @OnWebSocketClose
+    public void onClose(Session session, int statusCode, String reason) {
+        connections.removeSession(session);
+        binaryCodecs.remove(session);
+    }
+
+    private void runCommand(Session session, UserGameCommand userCommand, boolean binary) {
         try {
             switch (userCommand.getCommandType()) {
                 case JOIN_PLAYER -> joinPlayer(userCommand.getAuthString(), userCommand.getGameID(), false,
-                        userCommand.getPlayerColor(), session);
+                        userCommand.getPlayerColor(), userCommand.getGameVersion(),
+                        getSessionOptions(userCommand, binary), session);
                 case JOIN_OBSERVER -> joinPlayer(userCommand.getAuthString(), userCommand.getGameID(), true,
-                        null, session);
+                        null, userCommand.getGameVersion(), getSessionOptions(userCommand, binary), session);
                 case MAKE_MOVE -> makeMove(userCommand.getAuthString(), userCommand.getGameID(),
                         userCommand.getChessMove(), session);
                 case LEAVE -> leave(userCommand.getAuthString(), userCommand.getGameID(), false, session);
                 case RESIGN -> leave(userCommand.getAuthString(), userCommand.getGameID(), true, session);
+                case REQUEST_GAME -> requestGame(userCommand.getAuthString(), userCommand.getGameID(),
+                        userCommand.getGameVersion(), session);
             }
         } catch(Exception exception) {
+            // Unchecked exceptions too, so the sender always hears back and the executor never sees them
             ServerMessage errorMessage = new ServerMessage(ServerMessage.ServerMessageType.ERROR);
             errorMessage.setErrorMessage(exception.getMessage());
-            session.getRemote().sendString(new Gson().toJson(errorMessage));
+            connections.send(session, errorMessage);
         }
     }
 
+    private static ConnectionManager.SessionOptions getSessionOptions(UserGameCommand userCommand, boolean binary) {
+        return new ConnectionManager.SessionOptions(userCommand.getBatchMessages(), userCommand.getMoveDeltas(),
+                binary);
+    }
+
     public void clear() {
         connections.clear();
     }
 
+    /**
+     * @return the state of the outgoing message queues
+     */
+    public ConnectionManager.SendMetrics getSendMetrics() {
+        return connections.getSendMetrics();
+    }
+
+    /**
+     * @return the number of commands whose failure couldn't be reported to their session
+     */
+    public long getFailedCommands() {
+        return commandExecutor.getFailedCommands();
+    }
+
     private void joinPlayer(String authToken, Integer gameID, boolean isObserver, ChessGame.TeamColor playerColor,
+                            String knownGameVersion, ConnectionManager.SessionOptions options,
                             Session session) throws Exception {
         connections.add(gameID, session);
+        connections.setOptions(session, options);
         var username = dataAccess.getAuthToken(authToken).username();
         var gameEntry = dataAccess.getGame(gameID);
 
@@ -66,7 +146,7 @@ public class WebSocketHandler {
         {
             ServerMessage errorMessage = new ServerMessage(ServerMessage.ServerMessageType.ERROR);
             errorMessage.setErrorMessage("No team color given");
-            session.getRemote().sendString(gameAdapter.toJson(errorMessage));
+            connections.send(session, errorMessage);
         } else {
             String joinMessage;
             if (playerColor == null)
@@ -78,12 +158,30 @@ public class WebSocketHandler {
             serverMessage.setMessage(joinMessage);
             connections.broadcastGameMessage(gameEntry, serverMessage, session);
 
-            ServerMessage loadMessage = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME);
-            loadMessage.setGame(gameEntry.game());
-            session.getRemote().sendString(gameAdapter.toJson(loadMessage));
+            sendGame(gameEntry, knownGameVersion, session);
         }
     }
 
+    /**
+     * Sends the game again to a client whose copy fell out of step, such as when a MOVE_APPLIED didn't lead to
+     * the version it named
+     */
+    private void requestGame(String authToken, Integer gameID, String knownGameVersion, Session session)
+            throws Exception {
+        if (dataAccess.getAuthToken(authToken) == null)
+            throw new Exception("Error: unauthorized");
+        sendGame(dataAccess.getGame(gameID), knownGameVersion, session);
+    }
+
+    private void sendGame(Game gameEntry, String knownGameVersion, Session session) {
+        // A client that already has this state only needs to hear that it's still current
+        var gameVersion = ConnectionManager.getGameVersion(gameEntry.game());
+        if (gameVersion.equals(knownGameVersion))
+            connections.send(session, ConnectionManager.getGameCurrentMessage(gameVersion));
+        else
+            connections.sendLoadGame(session, gameEntry.gameID(), gameEntry.game());
+    }
+
     private void makeMove(String authToken, Integer gameID, ChessMove move, Session session) throws Exception {
         var username = dataAccess.getAuthToken(authToken).username();
         var gameEntry = dataAccess.getGame(gameID);
@@ -96,12 +194,12 @@ public class WebSocketHandler {
         if (gameEntry.gameOver()) {
             ServerMessage errorMessage = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME);
             errorMessage.setErrorMessage("Game is over");
-            session.getRemote().sendString(gameAdapter.toJson(errorMessage));
+            connections.send(session, errorMessage);
         } else {
             if (!isBlack && !isWhite)
                 throw new Exception(String.format("User %s isn't a player", username));
 
-            var chessGame = gameEntry.game();
+            var chessGame = (ChessGameImpl) gameEntry.game();
             var piece = chessGame.getBoard().getPiece(move.getStartPosition());
             if (piece.getTeamColor() == BLACK && isWhite ||
                     piece.getTeamColor() == WHITE && isBlack)
@@ -112,14 +210,25 @@ public class WebSocketHandler {
                     gameEntry.gameName(), chessGame, gameEntry.gameOver());
             dataAccess.updateGame(newGame);
 
-            ServerMessage loadMessage = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME);
-            loadMessage.setGame(gameEntry.game());
-            connections.broadcastGameMessage(newGame, loadMessage, null);
+            // Everything this move causes goes out together once it's all known
+            var batch = connections.startBatch(gameID);
+            // Only the team to move can be in check after a legal move, so one cached analysis covers both teams
+            var position = chessGame.analyzePosition();
+            ServerMessage.CheckState checkState;
+            if (position.isCheckmate())
+                checkState = ServerMessage.CheckState.CHECKMATE;
+            else if (position.isStalemate())
+                checkState = ServerMessage.CheckState.STALEMATE;
+            else if (position.inCheck())
+                checkState = ServerMessage.CheckState.CHECK;
+            else
+                checkState = ServerMessage.CheckState.NONE;
+            batch.addMoveApplied(chessGame, move, checkState);
 
             ServerMessage moveMessage = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION);
             moveMessage.setMessage(String.format("%s made move %s to %s", username, move.getStartPosition().toString(),
                     move.getEndPosition().toString()));
-            connections.broadcastGameMessage(newGame, moveMessage, session);
+            batch.addMessage(moveMessage, session);
 
             ChessGame.TeamColor winnerColor = null;
             ChessGame.TeamColor checkColor = null;
@@ -127,23 +236,17 @@ public class WebSocketHandler {
             String winnerName = null;
             boolean gameOver = false;
 
-            if (chessGame.isInCheckmate(WHITE)) {
-                winnerColor = WHITE;
-                winnerName = whiteUsername;
-                gameOver = true;
-            } else if (chessGame.isInCheckmate(BLACK)) {
-                winnerColor = BLACK;
-                winnerName = blackUsername;
+            var turnColor = chessGame.getTeamTurn();
+            var turnUsername = turnColor == WHITE ? whiteUsername : blackUsername;
+            if (position.isCheckmate()) {
+                winnerColor = turnColor;
+                winnerName = turnUsername;
                 gameOver = true;
-            } else if (chessGame.isInStalemate(WHITE) && chessGame.getTeamTurn() == WHITE ||
-                    chessGame.isInStalemate(BLACK) && chessGame.getTeamTurn() == BLACK)
-                completeGame(gameID, null, false);
-            else if (chessGame.isInCheck(WHITE)) {
-                checkColor = WHITE;
-                checkName = whiteUsername;
-            } else if (chessGame.isInCheck(BLACK)) {
-                checkColor = BLACK;
-                checkName = blackUsername;
+            } else if (position.isStalemate())
+                completeGame(gameID, null, false, batch);
+            else if (position.inCheck()) {
+                checkColor = turnColor;
+                checkName = turnUsername;
             }
 
             if (winnerColor != null) {
@@ -152,7 +255,7 @@ public class WebSocketHandler {
                     checkmateMessage.setMessage(String.format("%s (%s) checkmated", winnerName, winnerColor));
                 else
                     checkmateMessage.setMessage(String.format("%s checkmated", winnerColor));
-                connections.broadcastGameMessage(newGame, checkmateMessage, null);
+                batch.addMessage(checkmateMessage, null);
             }
 
             if (checkColor != null) {
@@ -161,11 +264,12 @@ public class WebSocketHandler {
                     checkMessage.setMessage(String.format("%s (%s) is in check", checkName, checkColor));
                 else
                     checkMessage.setMessage(String.format("%s is in check", checkColor));
-                connections.broadcastGameMessage(newGame, checkMessage, null);
+                batch.addMessage(checkMessage, null);
             }
 
             if (gameOver)
-                completeGame(gameID, winnerColor, false);
+                completeGame(gameID, winnerColor, false, batch);
+            batch.send();
         }
     }
 
@@ -186,13 +290,15 @@ public class WebSocketHandler {
             if (winnerColor == null) {
                 ServerMessage errorMessage = new ServerMessage(ServerMessage.ServerMessageType.ERROR);
                 errorMessage.setErrorMessage("Observers can't resign");
-                session.getRemote().sendString(new Gson().toJson(errorMessage));
+                connections.send(session, errorMessage);
             } else {
                 ServerMessage leaveMessage = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION);
                 leaveMessage.setMessage(String.format("%s resigned from the game", username));
-                connections.broadcastGameMessage(gameEntry, leaveMessage, null);
+                var batch = connections.startBatch(gameID);
+                batch.addMessage(leaveMessage, null);
 
-                completeGame(gameID, winnerColor, true);
+                completeGame(gameID, winnerColor, true, batch);
+                batch.send();
             }
         } else {
             ServerMessage leaveMessage = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION);
@@ -208,11 +314,13 @@ public class WebSocketHandler {
         var newGame = new Game(gameID, whiteUsername, blackUsername, gameEntry.gameName(), gameEntry.game(),
                 gameEntry.gameOver());
         dataAccess.updateGame(newGame);
+        GameService.getInstance().lobbyChanged();
 
         connections.remove(gameID, session);
     }
 
-    private void completeGame(Integer gameID, ChessGame.TeamColor winnerColor, boolean resigned) throws Exception {
+    private void completeGame(Integer gameID, ChessGame.TeamColor winnerColor, boolean resigned,
+                              MessageBatch batch) throws Exception {
         var gameEntry = dataAccess.getGame(gameID);
         String winningUser = null;
         if (winnerColor == WHITE)
@@ -226,7 +334,7 @@ public class WebSocketHandler {
                 resultMessage.setMessage(String.format("%s (%s) won the game!", winningUser, winnerColor.toString()));
             else
                 resultMessage.setMessage("The game ended in a stalemate!");
-            connections.broadcastGameMessage(gameEntry, resultMessage, null);
+            batch.addMessage(resultMessage, null);
         }
 
         var chessGame = gameEntry.game();
@@ -235,5 +343,8 @@ public class WebSocketHandler {
         var newGame = new Game(gameID, gameEntry.whiteUsername(), gameEntry.blackUsername(), gameEntry.gameName(),
                 chessGame, false);
         dataAccess.updateGame(newGame);
+        // A finished game shouldn't be left waiting in a write buffer
+        dataAccess.flushGame(gameID);
+        GameService.getInstance().lobbyChanged();
     }
 }
\ No newline at end of file
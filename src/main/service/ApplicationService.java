@@ -32,6 +32,7 @@ public class ApplicationService {
         try {
             dataAccess.clearData();
             webSocketHandler.clear();
+            GameService.getInstance().lobbyChanged();
             return new ClearResult(null, true);
         } catch (DataAccessException exception) {
             return new ClearResult("Error: " + exception.getMessage(), false);
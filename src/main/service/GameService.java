@@ -1,17 +1,23 @@
 package service;
 
 import chess.ChessBoardImpl;
-import chess.ChessGame;
 import chess.ChessGameImpl;
 import dataAccess.DataAccess;
 import dataAccess.DataAccessException;
+import dataAccess.GameQuery;
 import model.Game;
+import model.GameSummary;
+import server.websocket.GameCommandExecutor;
 import webRequest.CreateGameRequest;
 import webRequest.JoinGameRequest;
+import webRequest.ListGamesRequest;
 import webResult.CreateGameResult;
 import webResult.JoinGameResult;
 import webResult.ListGamesResult;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * The web service for game requests
  */
@@ -20,26 +26,90 @@ public class GameService {
     public static GameService getInstance() {
         return gameService;
     }
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
     private DataAccess dataAccess;
+    private GameCommandExecutor commandExecutor;
     public void init(DataAccess dataAccess) {
+        init(dataAccess, null);
+    }
+
+    /**
+     * @param commandExecutor the executor WebSocket commands run on, so joins take their turn with them, or null
+     *                        to run joins on the calling thread
+     */
+    public void init(DataAccess dataAccess, GameCommandExecutor commandExecutor) {
         gameService.dataAccess = dataAccess;
+        gameService.commandExecutor = commandExecutor;
+    }
+
+    // Goes up whenever a game is created, joined, left or finished, so an unchanged version means an unchanged list
+    private final AtomicLong lobbyVersion = new AtomicLong();
+    // Keeps an ETag handed out before a restart from matching one handed out after it
+    private final String lobbyEpoch = Long.toString(System.currentTimeMillis(), 36);
+
+    /**
+     * @return the ETag for the current state of the game list, the same for every page and filter
+     */
+    public String getLobbyETag() {
+        return "\"" + lobbyEpoch + "-" + lobbyVersion.get() + "\"";
+    }
+
+    /**
+     * Records that the game list has changed, so clients polling it get the new list
+     */
+    public void lobbyChanged() {
+        lobbyVersion.incrementAndGet();
+    }
+
+    /**
+     * @param authToken Token for authorization
+     * @return whether the token belongs to a logged-in user
+     */
+    public boolean isAuthorized(String authToken) {
+        try {
+            return dataAccess.getAuthToken(authToken) != null;
+        } catch (DataAccessException exception) {
+            return false;
+        }
     }
 
     /**
-     * Get the saved games
+     * Get the first page of saved games
      * @param authToken Token for authorization
      * @return the list games result
      */
     public ListGamesResult listGames(String authToken) {
+        return listGames(new ListGamesRequest(null, null, null, null, null, null), authToken);
+    }
+
+    /**
+     * Get a page of saved games
+     * @param request The page to get and the filters to apply
+     * @param authToken Token for authorization
+     * @return the list games result
+     */
+    public ListGamesResult listGames(ListGamesRequest request, String authToken) {
         try {
             var authTokenObject = dataAccess.getAuthToken(authToken);
             if (authTokenObject != null) {
-                return new ListGamesResult(dataAccess.getGames().toArray(new Game[0]), null, true);
+                var limit = request.limit() == null ? DEFAULT_PAGE_SIZE
+                        : Math.max(1, Math.min(request.limit(), MAX_PAGE_SIZE));
+                // One extra game tells whether there is another page without counting them all
+                var query = new GameQuery(request.cursor(), limit + 1, Boolean.TRUE.equals(request.openSeat()),
+                        request.player(), request.gameOver(), request.namePrefix());
+                var games = dataAccess.getGameSummaries(query).toArray(new GameSummary[0]);
+                Integer nextCursor = null;
+                if (games.length > limit) {
+                    games = Arrays.copyOf(games, limit);
+                    nextCursor = games[limit - 1].gameID();
+                }
+                return new ListGamesResult(games, null, true, nextCursor);
             } else {
-                return new ListGamesResult(null, "Error: unauthorized", false);
+                return new ListGamesResult(null, "Error: unauthorized", false, null);
             }
         } catch (DataAccessException exception) {
-            return new ListGamesResult(null, "Error: " + exception.getMessage(), false);
+            return new ListGamesResult(null, "Error: " + exception.getMessage(), false, null);
         }
     }
 
@@ -59,6 +129,7 @@ public class GameService {
                 chessGame.setBoard(board);
                 var game = new Game(0, null, null, request.gameName(), chessGame, false);
                 var gameID = dataAccess.createGame(game);
+                lobbyChanged();
                 return new CreateGameResult(gameID, null, true);
             } else {
                 return new CreateGameResult(null, "Error: unauthorized", false);
@@ -75,41 +146,34 @@ public class GameService {
      * @return the join game result
      */
     public JoinGameResult joinGame(JoinGameRequest request, String authToken) {
+        if (request.gameID() == null)
+            return new JoinGameResult("Error: bad request", false, null);
+        if (commandExecutor == null)
+            return joinGameInTurn(request, authToken);
         try {
-            if (request.gameID() == null)
-                return new JoinGameResult("Error: bad request", false, null);
+            // Moves change the same ChessGame, so the seat change waits for the game's turn
+            return commandExecutor.call(request.gameID(), () -> joinGameInTurn(request, authToken));
+        } catch (Exception exception) {
+            return new JoinGameResult("Error: " + exception.getMessage(), false, null);
+        }
+    }
 
+    private JoinGameResult joinGameInTurn(JoinGameRequest request, String authToken) {
+        try {
             var authTokenObject = dataAccess.getAuthToken(authToken);
             if (authTokenObject != null) { // valid token
                 var game = dataAccess.getGame(request.gameID());
                 if (game == null)
                     return new JoinGameResult("Error: bad request", false, null);
-                else {
-                    String currentPlayerOnTeam;
-                    var isObserver = request.playerColor() == null;
-                    if (isObserver) {
-                        return new JoinGameResult(null, true, game);
-                    } else {
-                        var isWhite = request.playerColor() == ChessGame.TeamColor.WHITE;
-                        if (isWhite)
-                            currentPlayerOnTeam = game.whiteUsername();
-                        else
-                            currentPlayerOnTeam = game.blackUsername();
-                        if (currentPlayerOnTeam == null) { // team slot in game not taken
-                            var username = dataAccess.getAuthToken(authToken).username();
-                            dataAccess.updateGame(new Game(
-                                    game.gameID(),
-                                    isWhite ? username : game.whiteUsername(),
-                                    !isWhite ? username : game.blackUsername(),
-                                    game.gameName(),
-                                    game.game(),
-                                    game.gameOver()
-                            ));
-                            return new JoinGameResult(null, true, game);
-                        } else
-                            return new JoinGameResult("Error: already taken", false, null);
-                    }
-                }
+                if (request.playerColor() == null) // observer
+                    return new JoinGameResult(null, true, copyOf(game));
+                // The data access checks the seat and takes it in one step, so two joins can't both get it
+                var user = dataAccess.getUser(authTokenObject.username());
+                if (user == null)
+                    return new JoinGameResult("Error: unauthorized", false, null);
+                dataAccess.joinGame(user, request.playerColor(), game);
+                lobbyChanged();
+                return new JoinGameResult(null, true, copyOf(game));
             } else {
                 return new JoinGameResult("Error: unauthorized", false, null);
             }
@@ -117,4 +181,12 @@ public class GameService {
             return new JoinGameResult("Error: " + exception.getMessage(), false, null);
         }
     }
+
+    // The result is serialized after the game's turn is over, when moves may be changing the original
+    private static Game copyOf(Game game) {
+        if (!(game.game() instanceof ChessGameImpl chessGame))
+            return game;
+        return new Game(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(),
+                chessGame.copy(), game.gameOver());
+    }
 }
@@ -1,17 +1,44 @@
 package dataAccess;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.LinkedList;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Database is responsible for creating connections to the database. Connections are
- * managed with a simple pool in order to increase performance. To obtain and
- * use connections represented by this class use the following pattern.
+ * kept in a bounded pool in order to increase performance: at most maxSize are open at once,
+ * callers wait up to the acquisition timeout for one to free up, idle connections are checked
+ * before being handed out, and connections idle for too long are closed down to minSize.
+ * Closing a connection from this class returns it to the pool and closes the statements made on it, so either
+ * of these patterns works.
  *
  * <pre>
  *  public boolean example(String selectStatement, Database db) throws DataAccessException{
+ *    try (var conn = db.getConnection(); var preparedStatement = conn.prepareStatement(selectStatement)) {
+ *        return preparedStatement.execute();
+ *    } catch (SQLException ex) {
+ *        throw new DataAccessException(ex.toString());
+ *    }
+ *  }
+ *
+ *  public boolean example(String selectStatement, Database db) throws DataAccessException{
  *    var conn = db.getConnection();
  *    try (var preparedStatement = conn.prepareStatement(selectStatement)) {
  *        return preparedStatement.execute();
@@ -32,36 +59,245 @@ public class Database {
 
     private static final String CONNECTION_URL = "jdbc:mysql://localhost:3306";
 
-    private final LinkedList<Connection> connections = new LinkedList<>();
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    // Indexes on game for the filters of the game list; each ends in id so a page can start at a cursor
+    private static final Map<String, String> gameIndexes = Map.of(
+            "game_white_username", "(white_username, id)",
+            "game_black_username", "(black_username, id)",
+            "game_game_over", "(game_over, id)",
+            "game_game_name", "(game_name, id)");
 
     /**
-     * Get a connection to the database. This pulls a connection out of a simple
-     * pool implementation. The connection must be returned to the pool after
-     * you are done with it by calling {@link #returnConnection(Connection) returnConnection}.
+     * A point-in-time view of the pool
+     * @param active connections currently borrowed
+     * @param idle connections open and waiting to be borrowed
+     * @param acquisitions total successful calls to getConnection
+     * @param timeouts calls to getConnection that gave up waiting
+     * @param averageWaitMillis average time getConnection waited for a free slot
+     * @param maxWaitMillis longest time getConnection waited for a free slot
+     */
+    public record PoolMetrics(int active, int idle, long acquisitions, long timeouts,
+                              double averageWaitMillis, double maxWaitMillis) { }
+
+    private record IdleConnection(Connection connection, long idleSinceNanos) { }
+
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutNanos;
+
+    // One permit per connection that may be borrowed, so waiting callers queue fairly
+    private final Semaphore permits;
+    // Most recently returned first, so the warmest connections are reused and the rest age out
+    private final LinkedBlockingDeque<IdleConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final LongAdder acquisitionCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean shutDown;
+
+    public Database() {
+        this(2, 16, 5000, 300_000);
+    }
+
+    /**
+     * @param minSize connections kept open even when idle
+     * @param maxSize most connections open at once
+     * @param acquireTimeoutMillis how long getConnection waits for a free connection before failing
+     * @param idleTimeoutMillis how long a connection above minSize can sit unused before it is closed
+     */
+    public Database(int minSize, int maxSize, long acquireTimeoutMillis, long idleTimeoutMillis) {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        permits = new Semaphore(maxSize, true);
+
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "database-idle-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var evictionPeriod = Math.max(1000, idleTimeoutMillis / 4);
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections, evictionPeriod, evictionPeriod, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get a connection to the database. This borrows a connection from the pool, waiting
+     * if all of them are in use. The connection must be returned to the pool after you are done
+     * with it, either by closing it or by calling {@link #returnConnection(Connection) returnConnection}.
      *
      * @return Connection
+     * @throws DataAccessException if no connection frees up within the acquisition timeout
      */
-    synchronized public Connection getConnection() throws DataAccessException {
+    public Connection getConnection() throws DataAccessException {
+        if (shutDown)
+            throw new DataAccessException("database is shut down");
+        var waitStart = System.nanoTime();
         try {
-            Connection connection;
-            if (connections.isEmpty()) {
-                connection = DriverManager.getConnection(CONNECTION_URL, DB_USERNAME, DB_PASSWORD);
-                connection.setCatalog(DB_NAME);
-            } else {
-                connection = connections.removeFirst();
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.increment();
+                throw new DataAccessException("timed out waiting for a database connection");
             }
-            return connection;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("interrupted waiting for a database connection");
+        }
+        var waitNanos = System.nanoTime() - waitStart;
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+
+        try {
+            IdleConnection idleConnection;
+            Connection connection = null;
+            while (connection == null && (idleConnection = idle.pollFirst()) != null) {
+                if (isUsable(idleConnection.connection()))
+                    connection = idleConnection.connection();
+                else
+                    closeQuietly(idleConnection.connection());
+            }
+            if (connection == null)
+                connection = openConnection();
+            activeCount.incrementAndGet();
+            acquisitionCount.increment();
+            return pooledConnection(connection);
         } catch (SQLException e) {
+            permits.release();
             throw new DataAccessException(e.getMessage());
         }
     }
 
-    public void initialize() throws DataAccessException {
+    private Connection openConnection() throws SQLException {
+        var connection = DriverManager.getConnection(CONNECTION_URL, DB_USERNAME, DB_PASSWORD);
+        connection.setCatalog(DB_NAME);
+        return connection;
+    }
+
+    private static boolean isUsable(Connection connection) {
         try {
-            Connection connection;
-            if (connections.isEmpty()) {
-                connection = DriverManager.getConnection(CONNECTION_URL, DB_USERNAME, DB_PASSWORD);
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
 
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private static void closeQuietly(List<Statement> statements) {
+        for (var statement : statements) {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+            }
+        }
+        statements.clear();
+    }
+
+    // Wraps a connection so that closing it hands it back to the pool instead, at most once. Closing the real
+    // connection would have closed its statements and their result sets, so the statements made through the
+    // wrapper are closed when it is handed back.
+    private Connection pooledConnection(Connection connection) {
+        var returned = new AtomicBoolean(false);
+        // A borrowed connection is only used by the thread that borrowed it
+        var statements = new ArrayList<Statement>();
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (returned.compareAndSet(false, true)) {
+                        closeQuietly(statements);
+                        release(connection);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned.get() || connection.isClosed();
+                }
+                case "unwrap" -> {
+                    if (args[0] == Connection.class)
+                        return connection;
+                }
+            }
+            if (returned.get())
+                throw new SQLException("Connection was already returned to the pool");
+            try {
+                var result = method.invoke(connection, args);
+                if (result instanceof Statement statement)
+                    statements.add(statement);
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    private void release(Connection connection) {
+        try {
+            if (shutDown)
+                closeQuietly(connection);
+            else if (!connection.isClosed()) {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                var idleConnection = new IdleConnection(connection, System.nanoTime());
+                idle.offerFirst(idleConnection);
+                // shutdown() may have emptied the pool just before this went in
+                if (shutDown && idle.remove(idleConnection))
+                    closeQuietly(connection);
+            }
+        } catch (SQLException e) {
+            closeQuietly(connection);
+        } finally {
+            activeCount.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    // Oldest idle connections are at the back of the deque
+    private void evictIdleConnections() {
+        var now = System.nanoTime();
+        IdleConnection oldest;
+        while (idle.size() + activeCount.get() > minSize && (oldest = idle.peekLast()) != null
+                && now - oldest.idleSinceNanos() > idleTimeoutNanos) {
+            if (idle.removeLastOccurrence(oldest))
+                closeQuietly(oldest.connection());
+        }
+    }
+
+    /**
+     * Stops the idle evictor and closes the idle connections. Connections still borrowed are closed when they
+     * are returned, and no more can be borrowed.
+     */
+    public void shutdown() {
+        shutDown = true;
+        evictor.shutdownNow();
+        IdleConnection idleConnection;
+        while ((idleConnection = idle.pollFirst()) != null)
+            closeQuietly(idleConnection.connection());
+    }
+
+    /**
+     * @return the current size of the pool and how long callers have waited for connections
+     */
+    public PoolMetrics getMetrics() {
+        var acquisitions = acquisitionCount.sum();
+        return new PoolMetrics(activeCount.get(), idle.size(), acquisitions, timeoutCount.sum(),
+                acquisitions == 0 ? 0 : totalWaitNanos.sum() / 1e6 / acquisitions, maxWaitNanos.get() / 1e6);
+    }
+
+    public void initialize() throws DataAccessException {
+        try {
+            try (Connection connection = DriverManager.getConnection(CONNECTION_URL, DB_USERNAME, DB_PASSWORD)) {
                 var createDbStatement = connection.prepareStatement("CREATE DATABASE IF NOT EXISTS chess");
                 createDbStatement.executeUpdate();
 
@@ -91,9 +327,20 @@ public class Database {
                     game_name VARCHAR(255) NOT NULL,
                     chess_game longtext NOT NULL,
                     game_over BOOLEAN NOT NULL,
+                    ply INT NOT NULL DEFAULT 0,
+                    snapshot_ply INT NOT NULL DEFAULT 0,
                     PRIMARY KEY (id)
                 )""";
 
+                var createGameMoveTable = """
+                CREATE TABLE IF NOT EXISTS game_move (
+                    game_id INT NOT NULL,
+                    ply INT NOT NULL,
+                    move INT NOT NULL,
+                    made_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+                    PRIMARY KEY (game_id, ply)
+                )""";
+
                 var createTableStatement = connection.prepareStatement(createUserTable);
                 createTableStatement.executeUpdate();
 
@@ -102,19 +349,47 @@ public class Database {
 
                 createTableStatement = connection.prepareStatement(createGameTable);
                 createTableStatement.executeUpdate();
+
+                // Game tables made before moves were logged are missing the ply columns
+                if (!connection.getMetaData().getColumns(DB_NAME, null, "game", "snapshot_ply").next()) {
+                    var alterStatement = connection.prepareStatement(
+                            "ALTER TABLE game ADD COLUMN ply INT NOT NULL DEFAULT 0, ADD COLUMN snapshot_ply INT NOT NULL DEFAULT 0");
+                    alterStatement.executeUpdate();
+                }
+
+                createTableStatement = connection.prepareStatement(createGameMoveTable);
+                createTableStatement.executeUpdate();
+
+                var existingIndexes = new HashSet<String>();
+                var indexInfo = connection.getMetaData().getIndexInfo(DB_NAME, null, "game", false, false);
+                while (indexInfo.next())
+                    existingIndexes.add(indexInfo.getString("INDEX_NAME"));
+                for (var index : gameIndexes.entrySet()) {
+                    if (!existingIndexes.contains(index.getKey())) {
+                        var createIndexStatement = connection.prepareStatement(
+                                "CREATE INDEX " + index.getKey() + " ON game " + index.getValue());
+                        createIndexStatement.executeUpdate();
+                    }
+                }
             }
+
+            // Open the minimum up front so the first requests don't pay for connection setup
+            for (int i = idle.size(); i < minSize; i++)
+                idle.offerLast(new IdleConnection(openConnection(), System.nanoTime()));
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
     }
 
     /**
-     * Return a previously acquired connection to the pool.
+     * Return a previously acquired connection to the pool. Equivalent to closing it.
      *
      * @param connection previous obtained by calling {@link #getConnection() getConnection}.
      */
-    synchronized public void returnConnection(Connection connection) {
-        connections.add(connection);
+    public void returnConnection(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
     }
 }
-
@@ -0,0 +1,81 @@
+package dataAccess;
+
+import model.AuthToken;
+import model.User;
+import org.junit.jupiter.api.*;
+
+public class CachingDataAccessTests {
+    // Lets a test look something up through the cache while a delete is running, as another request could
+    private static class SlowDeletingDataAccess extends MemoryDataAccess {
+        Runnable duringDelete = () -> { };
+
+        @Override
+        public void destroyUser(User user) throws DataAccessException {
+            duringDelete.run();
+            super.destroyUser(user);
+        }
+
+        @Override
+        public void destroyAuth(String authToken) throws DataAccessException {
+            duringDelete.run();
+            super.destroyAuth(authToken);
+        }
+    }
+
+    private final User user = new User("user", "password", "user@mail.com");
+    private final AuthToken authToken = new AuthToken("token", user.username());
+    private SlowDeletingDataAccess storage;
+    private CachingDataAccess dataAccess;
+
+    @BeforeEach
+    public void setup() throws DataAccessException {
+        storage = new SlowDeletingDataAccess();
+        dataAccess = new CachingDataAccess(storage);
+        dataAccess.createUser(user);
+        dataAccess.createAuthToken(authToken);
+    }
+
+    private void lookUpDuringDelete() {
+        storage.duringDelete = () -> {
+            try {
+                dataAccess.getUser(user.username());
+                dataAccess.getAuthToken(authToken.authToken());
+            } catch (DataAccessException exception) {
+                Assertions.fail(exception.getMessage());
+            }
+        };
+    }
+
+    @Test
+    public void destroyAuthInvalidates() throws DataAccessException {
+        Assertions.assertEquals(authToken, dataAccess.getAuthToken(authToken.authToken()));
+        lookUpDuringDelete();
+        dataAccess.destroyAuth(authToken.authToken());
+
+        Assertions.assertNull(dataAccess.getAuthToken(authToken.authToken()));
+        Assertions.assertEquals(user, dataAccess.getUser(user.username()));
+    }
+
+    @Test
+    public void destroyUserInvalidatesUserAndTokens() throws DataAccessException {
+        Assertions.assertEquals(user, dataAccess.getUser(user.username()));
+        Assertions.assertEquals(authToken, dataAccess.getAuthToken(authToken.authToken()));
+        // Only the cache still has the token, so only dropping the user's tokens from it makes this null
+        storage.destroyAuth(authToken.authToken());
+        lookUpDuringDelete();
+        dataAccess.destroyUser(user);
+
+        Assertions.assertNull(dataAccess.getUser(user.username()));
+        Assertions.assertNull(dataAccess.getAuthToken(authToken.authToken()));
+    }
+
+    @Test
+    public void clearDataInvalidates() throws DataAccessException {
+        Assertions.assertEquals(user, dataAccess.getUser(user.username()));
+        Assertions.assertEquals(authToken, dataAccess.getAuthToken(authToken.authToken()));
+        dataAccess.clearData();
+
+        Assertions.assertNull(dataAccess.getUser(user.username()));
+        Assertions.assertNull(dataAccess.getAuthToken(authToken.authToken()));
+    }
+}
@@ -0,0 +1,185 @@
+package dataAccess;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+public class DatabasePoolTests {
+    // Stands in for the MySQL driver, handing out connections and statements that only remember being closed
+    private static class FakeDriver implements Driver {
+        final AtomicInteger opened = new AtomicInteger();
+        final List<Object> closed = Collections.synchronizedList(new ArrayList<>());
+        final List<Statement> statements = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public Connection connect(String url, Properties info) {
+            if (!acceptsURL(url))
+                return null;
+            opened.incrementAndGet();
+            return fake(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+                case "prepareStatement", "createStatement" -> {
+                    var statement = fake(PreparedStatement.class, (statementProxy, statementMethod, statementArgs) ->
+                            switch (statementMethod.getName()) {
+                                case "close" -> closed.add(statementProxy);
+                                case "isClosed" -> closed.contains(statementProxy);
+                                default -> null;
+                            });
+                    statements.add(statement);
+                    yield statement;
+                }
+                case "close" -> closed.add(proxy);
+                case "isClosed" -> closed.contains(proxy);
+                case "isValid", "getAutoCommit" -> true;
+                default -> null;
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T fake(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (method.getName().equals("equals"))
+                    return proxy == args[0];
+                if (method.getName().equals("hashCode"))
+                    return System.identityHashCode(proxy);
+                var result = handler.invoke(proxy, method, args);
+                return method.getReturnType() == boolean.class ? Boolean.TRUE.equals(result) : result;
+            });
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith("jdbc:mysql:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+    }
+
+    private FakeDriver driver;
+    private Database database;
+    // Real drivers are set aside so that nothing reaches an actual database
+    private final List<Driver> otherDrivers = new ArrayList<>();
+
+    @BeforeEach
+    public void registerDriver() throws SQLException {
+        for (var registered : Collections.list(DriverManager.getDrivers())) {
+            DriverManager.deregisterDriver(registered);
+            otherDrivers.add(registered);
+        }
+        driver = new FakeDriver();
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterEach
+    public void restoreDrivers() throws SQLException {
+        if (database != null)
+            database.shutdown();
+        DriverManager.deregisterDriver(driver);
+        for (var registered : otherDrivers)
+            DriverManager.registerDriver(registered);
+        otherDrivers.clear();
+    }
+
+    @Test
+    public void closingReturnsConnectionForReuse() throws Exception {
+        database = new Database(0, 2, 100, 60_000);
+        database.getConnection().close();
+        database.getConnection().close();
+
+        Assertions.assertEquals(1, driver.opened.get());
+        var metrics = database.getMetrics();
+        Assertions.assertEquals(0, metrics.active());
+        Assertions.assertEquals(1, metrics.idle());
+        Assertions.assertEquals(2, metrics.acquisitions());
+    }
+
+    @Test
+    public void returningClosesStatements() throws Exception {
+        database = new Database(0, 1, 100, 60_000);
+        try (var connection = database.getConnection()) {
+            connection.prepareStatement("SELECT 1").executeQuery();
+            connection.prepareStatement("SELECT 2");
+        }
+
+        Assertions.assertEquals(2, driver.statements.size());
+        for (var statement : driver.statements)
+            Assertions.assertTrue(statement.isClosed(), "A statement was left open after the connection was returned");
+        Assertions.assertEquals(1, database.getMetrics().idle(), "The pooled connection itself was closed");
+    }
+
+    @Test
+    public void doubleCloseReturnsOnce() throws Exception {
+        database = new Database(0, 1, 100, 60_000);
+        var connection = database.getConnection();
+        connection.close();
+        connection.close();
+
+        Assertions.assertTrue(connection.isClosed());
+        Assertions.assertThrows(SQLException.class, () -> connection.prepareStatement("SELECT 1"));
+        Assertions.assertEquals(0, database.getMetrics().active());
+        Assertions.assertEquals(1, database.getMetrics().idle());
+    }
+
+    @Test
+    public void exhaustedPoolTimesOut() throws Exception {
+        database = new Database(0, 1, 50, 60_000);
+        var connection = database.getConnection();
+        try {
+            var exception = Assertions.assertThrows(DataAccessException.class, database::getConnection);
+            Assertions.assertEquals("timed out waiting for a database connection", exception.getMessage());
+        } finally {
+            connection.close();
+        }
+        Assertions.assertEquals(1, database.getMetrics().timeouts());
+        database.getConnection().close();
+    }
+
+    @Test
+    public void shutdownClosesConnections() throws Exception {
+        database = new Database(0, 2, 100, 60_000);
+        var idleConnection = database.getConnection();
+        var borrowedConnection = database.getConnection();
+        var idleUnwrapped = idleConnection.unwrap(Connection.class);
+        var borrowedUnwrapped = borrowedConnection.unwrap(Connection.class);
+        idleConnection.close();
+
+        database.shutdown();
+        Assertions.assertTrue(idleUnwrapped.isClosed());
+        Assertions.assertFalse(borrowedUnwrapped.isClosed());
+        borrowedConnection.close();
+        Assertions.assertTrue(borrowedUnwrapped.isClosed(), "A connection returned after shutdown went back to the pool");
+        Assertions.assertEquals(0, database.getMetrics().idle());
+
+        var exception = Assertions.assertThrows(DataAccessException.class, database::getConnection);
+        Assertions.assertEquals("database is shut down", exception.getMessage());
+    }
+}
@@ -0,0 +1,60 @@
+package dataAccess;
+
+import chess.ChessBoardImpl;
+import chess.ChessGameImpl;
+import model.Game;
+import org.junit.jupiter.api.*;
+
+public class WriteBehindDataAccessTests {
+    // Fails every game write while failing is set
+    private static class FlakyDataAccess extends MemoryDataAccess {
+        boolean failing;
+
+        @Override
+        public void updateGame(Game game) throws DataAccessException {
+            if (failing)
+                throw new DataAccessException("database unavailable");
+            super.updateGame(game);
+        }
+    }
+
+    private FlakyDataAccess storage;
+    private WriteBehindDataAccess dataAccess;
+
+    @BeforeEach
+    public void setup() {
+        storage = new FlakyDataAccess();
+        // Nothing is flushed in the background during a test
+        dataAccess = new WriteBehindDataAccess(storage, 3_600_000, 3_600_000);
+    }
+
+    @AfterEach
+    public void close() {
+        storage.failing = false;
+        dataAccess.close();
+    }
+
+    @Test
+    public void failedWritesAreCountedAndRetried() throws DataAccessException {
+        var chessGame = new ChessGameImpl();
+        var board = new ChessBoardImpl();
+        board.resetBoard();
+        chessGame.setBoard(board);
+        var gameID = dataAccess.createGame(new Game(0, null, null, "game", chessGame, false));
+        var game = dataAccess.getGame(gameID);
+        dataAccess.updateGame(game);
+        Assertions.assertEquals(1, dataAccess.getPendingWrites());
+
+        storage.failing = true;
+        Assertions.assertThrows(DataAccessException.class, () -> dataAccess.flushGame(gameID));
+        Assertions.assertEquals(1, dataAccess.getFailedWrites());
+        Assertions.assertEquals(0, dataAccess.getRetriedWrites());
+        Assertions.assertEquals(1, dataAccess.getPendingWrites(), "A failed write wasn't kept to retry");
+
+        storage.failing = false;
+        dataAccess.flushGame(gameID);
+        Assertions.assertEquals(1, dataAccess.getFailedWrites());
+        Assertions.assertEquals(1, dataAccess.getRetriedWrites());
+        Assertions.assertEquals(0, dataAccess.getPendingWrites());
+    }
+}
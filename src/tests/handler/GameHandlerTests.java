@@ -0,0 +1,104 @@
+package handler;
+
+import dataAccess.DataAccessException;
+import dataAccess.MemoryDataAccess;
+import model.AuthToken;
+import org.junit.jupiter.api.*;
+import service.GameService;
+import spark.Request;
+import spark.Response;
+import webRequest.CreateGameRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class GameHandlerTests {
+    private static class FakeRequest extends Request {
+        final Map<String, String> headers = new HashMap<>();
+
+        @Override
+        public String headers(String header) {
+            return headers.get(header);
+        }
+
+        @Override
+        public String queryParams(String queryParam) {
+            return null;
+        }
+    }
+
+    private static class FakeResponse extends Response {
+        Integer status;
+        final Map<String, String> headers = new HashMap<>();
+
+        @Override
+        public void status(int statusCode) {
+            status = statusCode;
+        }
+
+        @Override
+        public void header(String header, String value) {
+            headers.put(header, value);
+        }
+    }
+
+    private final GameHandler gameHandler = GameHandler.getInstance();
+    private final GameService gameService = GameService.getInstance();
+    private final AuthToken authToken = new AuthToken("token", "user");
+
+    @BeforeEach
+    public void setup() throws DataAccessException {
+        var dataAccess = new MemoryDataAccess();
+        dataAccess.createAuthToken(authToken);
+        gameService.init(dataAccess);
+        gameService.createGame(new CreateGameRequest("game"), authToken.authToken());
+    }
+
+    private FakeResponse listGames(String authToken, String ifNoneMatch) {
+        var request = new FakeRequest();
+        request.headers.put("authorization", authToken);
+        if (ifNoneMatch != null)
+            request.headers.put("If-None-Match", ifNoneMatch);
+        var response = new FakeResponse();
+        var body = gameHandler.handleListGames(request, response);
+        if (response.status == null)
+            Assertions.assertTrue(body.toString().contains("\"games\""), "A full list didn't hold the games");
+        else if (response.status == 304)
+            Assertions.assertEquals("", body);
+        return response;
+    }
+
+    @Test
+    public void unchangedListIsNotModified() {
+        var first = listGames(authToken.authToken(), null);
+        Assertions.assertNull(first.status);
+        var eTag = first.headers.get("ETag");
+        Assertions.assertNotNull(eTag);
+
+        var second = listGames(authToken.authToken(), eTag);
+        Assertions.assertEquals(Integer.valueOf(304), second.status);
+        Assertions.assertEquals(eTag, second.headers.get("ETag"));
+
+        var third = listGames(authToken.authToken(), "\"some-other-tag\", " + eTag);
+        Assertions.assertEquals(Integer.valueOf(304), third.status);
+    }
+
+    @Test
+    public void changedListGetsNewETag() {
+        var eTag = listGames(authToken.authToken(), null).headers.get("ETag");
+        gameService.createGame(new CreateGameRequest("another game"), authToken.authToken());
+
+        var response = listGames(authToken.authToken(), eTag);
+        Assertions.assertNull(response.status);
+        Assertions.assertNotEquals(eTag, response.headers.get("ETag"));
+    }
+
+    @Test
+    public void matchingETagStillNeedsAuthorization() {
+        var eTag = listGames(authToken.authToken(), null).headers.get("ETag");
+
+        var response = listGames("wrong token", eTag);
+        Assertions.assertEquals(Integer.valueOf(401), response.status);
+        Assertions.assertNull(response.headers.get("ETag"));
+    }
+}
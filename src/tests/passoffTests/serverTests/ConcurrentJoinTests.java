@@ -0,0 +1,89 @@
+package passoffTests.serverTests;
+
+import chess.ChessGame;
+import dataAccess.DataAccess;
+import dataAccess.DataAccessException;
+import org.junit.jupiter.api.*;
+import passoffTests.TestFactory;
+import server.websocket.WebSocketHandler;
+import service.ApplicationService;
+import service.GameService;
+import service.UserService;
+import webRequest.*;
+import webResult.JoinGameResult;
+
+import java.util.ArrayList;
+import java.util.concurrent.*;
+
+public class ConcurrentJoinTests {
+    private static final int JOINING_USERS = 8;
+    private static final UserService userService = TestFactory.getUserService();
+    private static final GameService gameService = TestFactory.getGameService();
+    private static final ApplicationService applicationService = TestFactory.getApplicationService();
+    private static final DataAccess dataAccess = TestFactory.getDataAccess();
+
+    @BeforeAll
+    public static void init() {
+        WebSocketHandler webSocketHandler = new WebSocketHandler(dataAccess);
+        userService.init(dataAccess);
+        gameService.init(dataAccess);
+        applicationService.init(dataAccess, webSocketHandler);
+    }
+    @BeforeEach
+    public void setup() { applicationService.clearApplication(); }
+
+    @Test
+    public void concurrentJoinsTakeSeatOnce() throws Exception {
+        var authTokens = new ArrayList<String>();
+        for (int i = 0; i < JOINING_USERS; i++) {
+            var registerResult = userService.register(new RegisterRequest("user" + i, "password", "user" + i + "@mail.com"));
+            authTokens.add(registerResult.authToken());
+        }
+        var gameID = gameService.createGame(new CreateGameRequest("gameName"), authTokens.get(0)).gameID();
+
+        // Every join waits at the gate so they all race for the same seat
+        var gate = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(JOINING_USERS);
+        var results = new ArrayList<Future<JoinGameResult>>();
+        try {
+            for (var authToken : authTokens)
+                results.add(executor.submit(() -> {
+                    gate.await();
+                    return gameService.joinGame(new JoinGameRequest(ChessGame.TeamColor.WHITE, gameID), authToken);
+                }));
+            gate.countDown();
+
+            var winner = -1;
+            for (int i = 0; i < JOINING_USERS; i++) {
+                var result = results.get(i).get(10, TimeUnit.SECONDS);
+                if (result.success()) {
+                    Assertions.assertEquals(-1, winner, "More than one user joined the same seat");
+                    winner = i;
+                } else
+                    Assertions.assertEquals("Error: already taken", result.message());
+            }
+            Assertions.assertNotEquals(-1, winner, "No user joined the seat");
+            Assertions.assertEquals("user" + winner, dataAccess.getGame(gameID).whiteUsername());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rejoinOwnSeatIsTaken() {
+        var user = TestFactory.createSimpleUser();
+        var registerResult = userService.register(new RegisterRequest(user.username(), user.password(), user.email()));
+        var gameID = gameService.createGame(new CreateGameRequest("gameName"), registerResult.authToken()).gameID();
+
+        var joinGameRequest = new JoinGameRequest(ChessGame.TeamColor.BLACK, gameID);
+        Assertions.assertTrue(gameService.joinGame(joinGameRequest, registerResult.authToken()).success());
+        var rejoinResult = gameService.joinGame(joinGameRequest, registerResult.authToken());
+        Assertions.assertFalse(rejoinResult.success());
+        Assertions.assertEquals("Error: already taken", rejoinResult.message());
+        try {
+            Assertions.assertEquals(user.username(), dataAccess.getGame(gameID).blackUsername());
+        } catch (DataAccessException exception) {
+            Assertions.fail("Exception thrown while reading games");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package server.websocket;
+
+import model.Game;
+import org.junit.jupiter.api.*;
+import webSocketMessages.serverMessages.ServerMessage;
+
+import java.util.List;
+
+public class ConnectionManagerTests {
+    private final Game gameOne = new Game(1, null, null, "game one", null, false);
+    private ConnectionManager connections;
+    private FakeSession leaving;
+    private FakeSession staying;
+
+    @BeforeEach
+    public void setup() {
+        connections = new ConnectionManager();
+        leaving = new FakeSession();
+        staying = new FakeSession();
+        connections.add(1, leaving.session);
+        connections.add(2, leaving.session);
+        connections.add(1, staying.session);
+    }
+
+    private static ServerMessage notification(String text) {
+        var message = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION);
+        message.setMessage(text);
+        return message;
+    }
+
+    @Test
+    public void broadcastPrunesClosedSession() {
+        leaving.open = false;
+        connections.broadcastGameMessage(gameOne, notification("white made a move"), null);
+
+        Assertions.assertTrue(leaving.sent.isEmpty());
+        Assertions.assertEquals(1, staying.sent.size());
+        // Dropped from game 2 as well, which leaves that game empty
+        Assertions.assertEquals(1, connections.getSessionCount());
+        Assertions.assertEquals(1, connections.getGameCount());
+    }
+
+    @Test
+    public void batchPrunesClosedSession() {
+        leaving.open = false;
+        var batch = connections.startBatch(1);
+        batch.addMessage(notification("white made a move"), null);
+        batch.send();
+
+        Assertions.assertTrue(leaving.sent.isEmpty());
+        Assertions.assertEquals(1, staying.sent.size());
+        Assertions.assertEquals(1, connections.getSessionCount());
+        Assertions.assertEquals(1, connections.getGameCount());
+    }
+
+    @Test
+    public void removeSessionLeavesEveryGame() {
+        connections.send(leaving.session, notification("queued"));
+        connections.removeSession(leaving.session);
+
+        Assertions.assertEquals(1, connections.getSessionCount());
+        Assertions.assertEquals(1, connections.getGameCount());
+        Assertions.assertEquals(0, connections.getSendMetrics().sessions());
+
+        connections.broadcastGameMessage(gameOne, notification("black made a move"), null);
+        Assertions.assertEquals(1, leaving.sent.size());
+        Assertions.assertEquals(1, staying.sent.size());
+    }
+
+    @Test
+    public void lastMemberLeavingDropsGame() {
+        connections.remove(2, leaving.session);
+        Assertions.assertEquals(1, connections.getGameCount());
+        Assertions.assertEquals(2, connections.getSessionCount());
+
+        connections.remove(1, leaving.session);
+        connections.remove(1, staying.session);
+        Assertions.assertEquals(0, connections.getGameCount());
+        Assertions.assertEquals(0, connections.getSessionCount());
+    }
+
+    @Test
+    public void broadcastSkipsExceptedSession() {
+        connections.broadcastGameMessage(gameOne, notification("white joined"), staying.session);
+
+        Assertions.assertEquals(1, leaving.sent.size());
+        Assertions.assertEquals(List.of(), staying.sent);
+    }
+}
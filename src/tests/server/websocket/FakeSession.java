@@ -0,0 +1,90 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A WebSocket session that records what is written to it. Writes only complete when the test says so.
+ */
+class FakeSession {
+    // Text messages as Strings, binary ones as byte arrays
+    final List<Object> sent = new ArrayList<>();
+    final List<WriteCallback> pendingWrites = new ArrayList<>();
+    boolean open = true;
+    Integer closeStatus;
+    final Session session;
+
+    FakeSession() {
+        var remote = fake(RemoteEndpoint.class, (proxy, method, args) -> {
+            if (method.getName().equals("sendString") && args.length == 2) {
+                sent.add(args[0]);
+                pendingWrites.add((WriteCallback) args[1]);
+            } else if (method.getName().equals("sendBytes") && args.length == 2) {
+                var buffer = (ByteBuffer) args[0];
+                var bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                sent.add(bytes);
+                pendingWrites.add((WriteCallback) args[1]);
+            }
+            return null;
+        });
+        session = fake(Session.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getRemote" -> remote;
+            case "isOpen" -> open;
+            case "close" -> {
+                open = false;
+                if (args != null && args.length == 2)
+                    closeStatus = (Integer) args[0];
+                yield null;
+            }
+            default -> null;
+        });
+    }
+
+    /**
+     * Finishes the oldest write still in progress
+     */
+    void completeWrite() {
+        pendingWrites.remove(0).writeSuccess();
+    }
+
+    /**
+     * Finishes every write, including the ones that finishing earlier writes starts
+     */
+    void completeAllWrites() {
+        while (!pendingWrites.isEmpty())
+            completeWrite();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T fake(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                }
+            }
+            var result = handler.invoke(proxy, method, args);
+            if (result == null && method.getReturnType() == boolean.class)
+                return false;
+            if (result == null && method.getReturnType() == int.class)
+                return 0;
+            if (result == null && method.getReturnType() == long.class)
+                return 0L;
+            return result;
+        });
+    }
+}
@@ -0,0 +1,110 @@
+package server.websocket;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GameCommandExecutorTests {
+    private GameCommandExecutor executor;
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void oneGameRunsInOrderWithoutOverlap() throws Exception {
+        executor = new GameCommandExecutor(4);
+        var order = Collections.synchronizedList(new ArrayList<Integer>());
+        var running = new AtomicInteger();
+        var overlapped = new AtomicBoolean();
+        for (int i = 0; i < 1000; i++) {
+            var command = i;
+            executor.execute(1, () -> {
+                if (running.incrementAndGet() > 1)
+                    overlapped.set(true);
+                order.add(command);
+                running.decrementAndGet();
+            });
+        }
+        executor.call(1, () -> null);
+
+        Assertions.assertFalse(overlapped.get(), "Two commands for one game ran at once");
+        for (int i = 0; i < 1000; i++)
+            Assertions.assertEquals(Integer.valueOf(i), order.get(i));
+    }
+
+    @Test
+    public void gamesRunInParallel() throws InterruptedException {
+        executor = new GameCommandExecutor(2);
+        // Game 1's command can only finish once game 2's has run alongside it
+        var gameTwoRan = new CountDownLatch(1);
+        var gameOneDone = new CountDownLatch(1);
+        executor.execute(1, () -> {
+            try {
+                if (gameTwoRan.await(5, TimeUnit.SECONDS))
+                    gameOneDone.countDown();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(2, gameTwoRan::countDown);
+
+        Assertions.assertTrue(gameOneDone.await(10, TimeUnit.SECONDS), "Game 2 waited for game 1");
+    }
+
+    @Test
+    public void busyGameHandsOffWorker() throws Exception {
+        executor = new GameCommandExecutor(1);
+        var release = new CountDownLatch(1);
+        executor.execute(1, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 200; i++)
+            executor.execute(1, () -> order.add(1));
+        executor.execute(2, () -> order.add(2));
+        release.countDown();
+        executor.call(1, () -> null);
+
+        var gameTwoIndex = order.indexOf(2);
+        Assertions.assertTrue(gameTwoIndex >= 0 && gameTwoIndex < 200,
+                "Game 2 waited for all of game 1's commands instead of getting a turn");
+    }
+
+    @Test
+    public void failedCommandDoesNotStopGame() throws Exception {
+        executor = new GameCommandExecutor(1);
+        executor.execute(1, () -> {
+            throw new IllegalStateException("Command failed on purpose");
+        });
+        Assertions.assertEquals("next", executor.call(1, () -> "next"));
+        Assertions.assertEquals(1, executor.getFailedCommands());
+
+        var exception = Assertions.assertThrows(Exception.class, () -> executor.call(1, () -> {
+            throw new Exception("Error: already taken");
+        }));
+        Assertions.assertEquals("Error: already taken", exception.getMessage());
+        Assertions.assertEquals("after", executor.call(1, () -> "after"));
+        // call() hands its failure back to the caller, so the executor doesn't count it
+        Assertions.assertEquals(1, executor.getFailedCommands());
+    }
+
+    @Test
+    public void nullGameRunsOnCallingThread() {
+        executor = new GameCommandExecutor(1);
+        var thread = new Thread[1];
+        executor.execute(null, () -> thread[0] = Thread.currentThread());
+        Assertions.assertSame(Thread.currentThread(), thread[0]);
+    }
+}
@@ -0,0 +1,99 @@
+package server.websocket;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SessionSenderTests {
+    private FakeSession fakeSession;
+    private LongAdder coalescedLoadGames;
+    private LongAdder slowConsumerDisconnects;
+    private SessionSender sender;
+
+    @BeforeEach
+    public void setup() {
+        fakeSession = new FakeSession();
+        coalescedLoadGames = new LongAdder();
+        slowConsumerDisconnects = new LongAdder();
+        sender = new SessionSender(fakeSession.session, coalescedLoadGames, slowConsumerDisconnects);
+    }
+
+    @Test
+    public void oneWriteInFlight() {
+        sender.send("first", null);
+        sender.send("second", null);
+        sender.send(new byte[]{3}, null);
+        Assertions.assertEquals(List.of("first"), fakeSession.sent);
+        Assertions.assertEquals(2, sender.getQueueDepth());
+
+        fakeSession.completeWrite();
+        Assertions.assertEquals(List.of("first", "second"), fakeSession.sent);
+        Assertions.assertEquals(1, fakeSession.pendingWrites.size());
+
+        fakeSession.completeWrite();
+        Assertions.assertEquals(3, fakeSession.sent.size());
+        Assertions.assertArrayEquals(new byte[]{3}, (byte[]) fakeSession.sent.get(2));
+        Assertions.assertEquals(0, sender.getQueueDepth());
+
+        // Nothing is being written once the queue empties, so the next message goes straight out
+        fakeSession.completeWrite();
+        sender.send("fourth", null);
+        Assertions.assertEquals(4, fakeSession.sent.size());
+    }
+
+    @Test
+    public void newerLoadGameReplacesQueuedOne() {
+        sender.send("in flight", null);
+        sender.send("game 7, old", 7);
+        sender.send("notification", null);
+        sender.send("game 8", 8);
+        sender.send("game 7, new", 7);
+        Assertions.assertEquals(3, sender.getQueueDepth());
+        Assertions.assertEquals(1, coalescedLoadGames.sum());
+
+        fakeSession.completeAllWrites();
+        Assertions.assertEquals(List.of("in flight", "notification", "game 8", "game 7, new"), fakeSession.sent);
+    }
+
+    @Test
+    public void loadGameInFlightIsNotReplaced() {
+        sender.send("game 7, old", 7);
+        sender.send("game 7, new", 7);
+        Assertions.assertEquals(0, coalescedLoadGames.sum());
+
+        fakeSession.completeAllWrites();
+        Assertions.assertEquals(List.of("game 7, old", "game 7, new"), fakeSession.sent);
+    }
+
+    @Test
+    public void fullQueueDisconnects() {
+        sender.send("in flight", null);
+        for (int i = 0; i < SessionSender.MAX_QUEUED_MESSAGES; i++)
+            sender.send("queued " + i, null);
+        Assertions.assertTrue(fakeSession.open);
+        Assertions.assertEquals(SessionSender.MAX_QUEUED_MESSAGES, sender.getQueueDepth());
+
+        sender.send("one too many", null);
+        Assertions.assertFalse(fakeSession.open);
+        Assertions.assertEquals(Integer.valueOf(1008), fakeSession.closeStatus);
+        Assertions.assertEquals(1, slowConsumerDisconnects.sum());
+        Assertions.assertEquals(0, sender.getQueueDepth());
+
+        // Nothing more goes out once the session has been dropped
+        fakeSession.completeAllWrites();
+        sender.send("after close", null);
+        Assertions.assertEquals(List.of("in flight"), fakeSession.sent);
+    }
+
+    @Test
+    public void failedWriteStopsSending() {
+        sender.send("first", null);
+        sender.send("second", null);
+        fakeSession.pendingWrites.remove(0).writeFailed(new RuntimeException("Connection reset"));
+        sender.send("third", null);
+
+        Assertions.assertEquals(List.of("first"), fakeSession.sent);
+        Assertions.assertEquals(0, sender.getQueueDepth());
+    }
+}
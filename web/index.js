@@ -1,3 +1,6 @@
+// Cursor for the page after the last game list shown, so clicking the endpoint again pages forward
+let nextGamesCursor = null;
+
 function submit() {
   document.getElementById('response').value = '';
   const method = document.getElementById('method').value;
@@ -28,6 +31,7 @@ function send(path, params, method, authToken) {
       return response.json();
     })
     .then((data) => {
+      if (method === 'GET' && path.startsWith('/game')) nextGamesCursor = data.nextCursor ?? null;
       document.getElementById('authToken').value = data.authToken || authToken || 'none';
       document.getElementById('response').innerText = errStr + JSON.stringify(data, null, 2);
     })
@@ -56,7 +60,8 @@ function logout() {
   displayRequest('DELETE', '/session', null);
 }
 function gamesList() {
-  displayRequest('GET', '/game', null);
+  const cursor = nextGamesCursor ? '&cursor=' + nextGamesCursor : '';
+  displayRequest('GET', '/game?limit=20' + cursor, null);
 }
 function createGame() {
   displayRequest('POST', '/game', { gameName: 'gameName' });